@@ -0,0 +1,93 @@
+package org.diariocultural;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Motor de armazenamento binário compacto.
+ * <p>
+ * Cada registro é codificado em Smile (JSON binário do Jackson, sem indentação nem
+ * conversão de números para texto) e gravado com um prefixo de tamanho:
+ * <pre>
+ *   "DCB1" | (int tamanho, bytes Smile)* | int -1 | int quantidade
+ * </pre>
+ * O trailer com a quantidade permite detectar um arquivo truncado exatamente
+ * entre dois registros. O mapeamento dos campos é o mesmo do JSON (anotações Jackson).
+ */
+public class BinaryStorageEngine implements StorageEngine {
+
+    private static final int MAGIC = 0x44434231; // "DCB1"
+    private static final int END_OF_RECORDS = -1;
+
+    private final ObjectMapper objectMapper;
+
+    public BinaryStorageEngine() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        this.objectMapper = new ObjectMapper(factory)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public String fileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public <T> void write(OutputStream out, List<T> items, Class<T> type) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(type);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        for (T item : items) {
+            byte[] record = writer.writeValueAsBytes(item);
+            data.writeInt(record.length);
+            data.write(record);
+        }
+        data.writeInt(END_OF_RECORDS);
+        data.writeInt(items.size());
+        data.flush();
+    }
+
+    @Override
+    public <T> int read(InputStream in, Class<T> type, Consumer<? super T> sink) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Arquivo não está no formato binário do Diário Cultural");
+        }
+        byte[] buffer = new byte[4096];
+        int count = 0;
+        int length;
+        // readInt lança EOFException se o arquivo terminar antes do trailer
+        while ((length = data.readInt()) != END_OF_RECORDS) {
+            if (length < 0) {
+                throw new IOException("Tamanho de registro inválido: " + length);
+            }
+            if (length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+            }
+            data.readFully(buffer, 0, length);
+            T item = reader.readValue(buffer, 0, length);
+            sink.accept(item);
+            count++;
+        }
+        int expected = data.readInt();
+        if (expected != count) {
+            throw new IOException("Esperados " + expected + " registros, lidos " + count);
+        }
+        return count;
+    }
+}
@@ -1,136 +1,269 @@
-package org.diariocultural;
-
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.*; // Para Comparator, Collections, Date, Optional, etc.
-import java.util.stream.Collectors;
-
-/**
- * Controlador responsável por gerenciar as operações CRUD (Criar, Ler, Atualizar, Deletar),
- * busca e listagem avançada para a entidade {@link Book}.
- * para mensagens genéricas.
- *
- * @see Book
- */
-public class BookController {
-
-    private List<Book> books;
-    private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "books.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
-
-    public BookController() {
-        loadData();
-        if (this.books == null) {
-            this.books = new ArrayList<>();
-        }
-        Book.updateBookCounterBasedOnLoadedData(this.books);
-    }
-
-
-    public void addBookViaObject(Book book) {
-        if (book != null) {
-            this.books.add(book);
-            saveData(); // Persiste a adição
-        } else {
-            System.out.println(" Tentativa de adicionar um objeto Book nulo.");
-        }
-    }
-
-    public void updateBook(Book updatedBook) {
-        // A lógica de encontrar e substituir pode variar, mas esta é uma abordagem simples
-        for (int i = 0; i < books.size(); i++) {
-            if (books.get(i).getBookId() == updatedBook.getBookId()) {
-                books.set(i, updatedBook); // Substitui o livro antigo pelo novo
-                saveData();
-                System.out.println("Livro '" + updatedBook.getTitle() + "' atualizado.");
-                return;
-            }
-        }
-    }
-
-    public void removeBook(Book bookToRemove) {
-        if (bookToRemove != null && books.contains(bookToRemove)) {
-            books.remove(bookToRemove);
-            System.out.println("Livro '" + bookToRemove.getTitle() + "' removido com sucesso!");
-            saveData();
-        } else {
-            System.err.println("Tentativa de remover um livro nulo ou que não existe na lista.");
-        }
-    }
-
-    // Adicione este método ao seu BookController/BookService
-    public List<Book> getAllBooks() {
-        return new ArrayList<>(this.books); // Retorna uma cópia da lista
-    }
-
-    public List<Book> searchBooks(String criteria) {
-        if (criteria == null || criteria.isBlank()) {
-            return new ArrayList<>(this.books); // Retorna todos os livros
-        }
-
-        String lowerCriteria = criteria.toLowerCase().trim();
-        List<Book> results = books.stream()
-                .filter(book ->
-                        book.getTitle().toLowerCase().contains(lowerCriteria) ||
-                                book.getAuthor().toLowerCase().contains(lowerCriteria) ||
-                                book.getISBN().toLowerCase().contains(lowerCriteria) ||
-                                (book.getOriginalTitle() != null && book.getOriginalTitle().toLowerCase().contains(lowerCriteria)) ||
-                                book.getGenre().stream().anyMatch(genre -> genre.toLowerCase().contains(lowerCriteria)) ||
-                                String.valueOf(book.getReleaseYear()).contains(lowerCriteria)
-                )
-                .collect(Collectors.toList());
-
-        // A lógica de imprimir no console foi removida, pois agora é responsabilidade da GUI
-        return results;
-    }
-
-    public void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                if (!dataDir.mkdirs()) {
-                    System.err.println(" Falha ao criar diretório: " + dataDir.getAbsolutePath());
-                    return;
-                }
-            }
-            objectMapper.writeValue(new File(FILE_PATH), books);
-        } catch (IOException e) {
-            System.err.println("Erro crítico ao salvar dados de livros em " + FILE_PATH + ": " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private void loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        File file = new File(FILE_PATH);
-
-        if (file.exists() && file.isFile() && file.length() > 0) {
-            try {
-                this.books = objectMapper.readValue(file, new TypeReference<List<Book>>() {});
-                System.out.println(" Dados de livros carregados com sucesso de " + FILE_PATH);
-            } catch (IOException e) {
-                System.err.println(" Erro ao ler ou desserializar o arquivo " + FILE_PATH + ": " + e.getMessage());
-                e.printStackTrace();
-                this.books = new ArrayList<>();
-            }
-        } else {
-            if (!file.exists()) {
-                System.out.println("Arquivo " + FILE_PATH + " não encontrado. Será criado ao salvar.");
-            } else {
-                System.out.println("Arquivo " + FILE_PATH + " vazio ou inválido. Iniciando com catálogo vazio.");
-            }
-            this.books = new ArrayList<>();
-        }
-    }
+package org.diariocultural;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*; // Para Comparator, Collections, Date, Optional, etc.
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Controlador responsável por gerenciar as operações CRUD (Criar, Ler, Atualizar, Deletar),
+ * busca e listagem avançada para a entidade {@link Book}.
+ * para mensagens genéricas.
+ *
+ * @see Book
+ */
+public class BookController {
+
+    /** Livros indexados pelo bookId, na ordem de inserção (busca/atualização/remoção em O(1)). */
+    private final IdIndex<Book> books = new IdIndex<>(Book::getBookId);
+    private static final String DATA_DIRECTORY = "data";
+    private static final String BASE_NAME = "books";
+    private final StorageEngine storage;
+    private final File snapshotFile;
+    private final MediaJournal<Book> journal;
+    private final List<CatalogListener<? super Book>> listeners = new CopyOnWriteArrayList<>();
+    /** Repassa cada alteração a todos os {@link #listeners}, inclusive durante a carga. */
+    private final CatalogListener<Book> notifier = CatalogListener.broadcast(listeners);
+
+    public BookController() {
+        this(StorageEngine.getDefault());
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     */
+    public BookController(StorageEngine storage) {
+        this(storage, DATA_DIRECTORY);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     */
+    public BookController(StorageEngine storage, String dataDirectory) {
+        this(storage, dataDirectory, null);
+    }
+
+    /**
+     * Usa o motor padrão e o diretório "data".
+     *
+     * @param listener ouvinte registrado antes da carga (ver {@link #BookController(StorageEngine, String, CatalogListener)}).
+     */
+    public BookController(CatalogListener<? super Book> listener) {
+        this(StorageEngine.getDefault(), DATA_DIRECTORY, listener);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     * @param listener ouvinte registrado antes da carga, ou {@code null}: recebe cada registro lido do
+     *                 snapshot e do journal assim que entra no catálogo e, depois, as alterações seguintes.
+     */
+    public BookController(StorageEngine storage, String dataDirectory, CatalogListener<? super Book> listener) {
+        if (listener != null) listeners.add(listener);
+        this.storage = storage;
+        this.snapshotFile = storage.snapshotFile(dataDirectory, BASE_NAME);
+        this.journal = new MediaJournal<>(dataDirectory, BASE_NAME, Book.class, Book::getBookId,
+                PersistenceService.getDefault());
+        loadData();
+        Book.updateBookCounterBasedOnLoadedData(this.books);
+    }
+
+
+    public void addBookViaObject(Book book) {
+        if (book != null) {
+            this.books.put(book);
+            recordMutation(MediaJournal.Operation.ADD, book); // Persiste apenas a adição
+        } else {
+            System.out.println(" Tentativa de adicionar um objeto Book nulo.");
+        }
+    }
+
+    /**
+     * Busca um livro pelo seu id.
+     * @return o livro, ou {@code null} se não existir.
+     */
+    public Book findById(int bookId) {
+        return books.get(bookId);
+    }
+
+    public void updateBook(Book updatedBook) {
+        // Substitui o livro antigo pelo novo, mantendo sua posição na lista
+        if (updatedBook != null && books.replace(updatedBook) != null) {
+            recordMutation(MediaJournal.Operation.UPDATE, updatedBook);
+            System.out.println("Livro '" + updatedBook.getTitle() + "' atualizado.");
+        }
+    }
+
+    public void removeBook(Book bookToRemove) {
+        if (bookToRemove != null && books.removeId(bookToRemove.getBookId()) != null) {
+            System.out.println("Livro '" + bookToRemove.getTitle() + "' removido com sucesso!");
+            recordMutation(MediaJournal.Operation.DELETE, bookToRemove);
+        } else {
+            System.err.println("Tentativa de remover um livro nulo ou que não existe na lista.");
+        }
+    }
+
+    /**
+     * @return todos os livros, na ordem de inserção, em uma lista somente leitura que não muda
+     *         com alterações posteriores (reaproveitada enquanto o catálogo não mudar).
+     */
+    public List<Book> getAllBooks() {
+        return books.snapshot();
+    }
+
+    public List<Book> searchBooks(String criteria) {
+        if (criteria == null || criteria.isBlank()) {
+            return books.snapshot(); // Retorna todos os livros
+        }
+
+        // Título, título original, autor, ISBN, gêneros e ano, sem diferenciar acentos e maiúsculas
+        String key = TextNormalizer.normalize(criteria.trim());
+        List<Book> results = new ArrayList<>();
+        for (Book book : books.snapshot()) {
+            if (book.matchesSearch(key)) {
+                results.add(book);
+            }
+        }
+
+        // A lógica de imprimir no console foi removida, pois agora é responsabilidade da GUI
+        return results;
+    }
+
+    /**
+     * Registra um ouvinte notificado a cada adição, atualização ou remoção de livros.
+     */
+    public void addCatalogListener(CatalogListener<? super Book> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCatalogListener(CatalogListener<? super Book> listener) {
+        listeners.remove(listener);
+    }
+
+    // --- Operações em lote: alteram a memória item a item e persistem uma única vez ---
+
+    /**
+     * Adiciona vários livros de uma vez. Itens nulos são ignorados.
+     * A persistência é feita uma única vez ao final (um único lote no journal).
+     */
+    public void addAll(Collection<Book> items) {
+        List<Book> added = new ArrayList<>(items.size());
+        for (Book item : items) {
+            if (item != null) {
+                books.put(item);
+                added.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.ADD, added);
+    }
+
+    /**
+     * Atualiza vários livros de uma vez; itens cujo id não existe são ignorados.
+     */
+    public void updateAll(Collection<Book> items) {
+        List<Book> updated = new ArrayList<>(items.size());
+        for (Book item : items) {
+            if (item != null && books.replace(item) != null) {
+                updated.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.UPDATE, updated);
+    }
+
+    /**
+     * Remove vários livros de uma vez, pelo id.
+     */
+    public void removeAll(Collection<Book> items) {
+        List<Book> removed = new ArrayList<>(items.size());
+        for (Book item : items) {
+            if (item != null && books.removeId(item.getBookId()) != null) {
+                removed.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.DELETE, removed);
+    }
+
+    /**
+     * Persiste um lote como uma única escrita no journal. Lotes grandes também passam pelo
+     * journal: um snapshot sozinho não impediria que entradas antigas ainda no disco fossem
+     * reaplicadas sobre ele; a compactação vem depois, pelo limite de tamanho.
+     */
+    private void recordBatch(MediaJournal.Operation op, List<Book> changed) {
+        if (changed.isEmpty()) return;
+        if (!journal.appendAll(op, changed) || journal.needsCompaction()) {
+            saveData();
+        }
+        for (Book item : changed) {
+            notifyListeners(op, item);
+        }
+    }
+
+    /**
+     * Registra a mutação no journal. Se a escrita falhar ou o journal passar do limite,
+     * grava um snapshot completo em segundo plano.
+     */
+    private void recordMutation(MediaJournal.Operation op, Book book) {
+        if (!journal.append(op, book) || journal.needsCompaction()) {
+            saveData();
+        }
+        notifyListeners(op, book);
+    }
+
+    private void notifyListeners(MediaJournal.Operation op, Book item) {
+        switch (op) {
+            case ADD -> notifier.added(item);
+            case UPDATE -> notifier.updated(item);
+            case DELETE -> notifier.removed(item);
+        }
+    }
+
+    /**
+     * Grava, em segundo plano, um snapshot completo do catálogo de livros
+     * e descarta os segmentos do journal cobertos por ele.
+     */
+    public void saveData() {
+        byte[] content;
+        try {
+            // Serializa aqui: os objetos podem ser alterados enquanto a gravação espera na fila
+            content = storage.encode(books.snapshot(), Book.class);
+        } catch (IOException e) {
+            System.err.println("Erro ao serializar o catálogo para " + snapshotFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return; // O journal continua valendo; a compactação é tentada de novo na próxima alteração
+        }
+        journal.compactInBackground(content, this::writeSnapshot);
+    }
+
+    private boolean writeSnapshot(byte[] content) {
+        try {
+            storage.saveSnapshot(snapshotFile, content);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erro crítico ao salvar dados de livros em " + snapshotFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void loadData() {
+        SnapshotFiles.Source loaded = SnapshotFiles.Source.NONE;
+        if (SnapshotFiles.hasSnapshot(snapshotFile)) {
+            try {
+                loaded = storage.loadSnapshot(snapshotFile, Book.class, books, notifier);
+                System.out.println(" Dados de livros carregados com sucesso de " + snapshotFile);
+            } catch (IOException e) {
+                System.err.println(" Erro ao ler ou desserializar o arquivo " + snapshotFile + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        } else {
+            if (!snapshotFile.exists()) {
+                System.out.println("Arquivo " + snapshotFile + " não encontrado. Será criado ao salvar.");
+            } else {
+                System.out.println("Arquivo " + snapshotFile + " vazio ou inválido. Iniciando com catálogo vazio.");
+            }
+        }
+        // Reaplica as alterações registradas depois do snapshot carregado
+        journal.replay(books, loaded, notifier);
+    }
 }
\ No newline at end of file
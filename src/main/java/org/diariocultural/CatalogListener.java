@@ -0,0 +1,49 @@
+package org.diariocultural;
+
+import java.util.List;
+
+/**
+ * Recebe as alterações feitas no catálogo de um controlador (adição, atualização e remoção),
+ * permitindo manter índices e telas sincronizados sem varrer a lista inteira a cada consulta.
+ * <p>
+ * As notificações são feitas na thread que fez a alteração, logo depois de a memória ser
+ * atualizada e de a mutação ter sido entregue ao journal. Um ouvinte registrado na criação do
+ * controlador também recebe, como adições, os registros lidos do snapshot e do journal durante a
+ * carga (na thread que carrega o catálogo).
+ *
+ * @param <T> tipo de mídia (Book, Movie ou Series).
+ */
+public interface CatalogListener<T> {
+
+    /** Um item foi adicionado (ou readicionado com um id já existente). */
+    void added(T item);
+
+    /** Um item existente foi atualizado; o objeto recebido é a versão atual. */
+    void updated(T item);
+
+    /** Um item foi removido do catálogo. */
+    void removed(T item);
+
+    /**
+     * @return ouvinte que repassa cada notificação, na ordem, a todos os ouvintes da lista. A lista
+     *         é percorrida a cada notificação, então ouvintes registrados depois também recebem.
+     */
+    static <T> CatalogListener<T> broadcast(List<? extends CatalogListener<? super T>> listeners) {
+        return new CatalogListener<>() {
+            @Override
+            public void added(T item) {
+                for (CatalogListener<? super T> listener : listeners) listener.added(item);
+            }
+
+            @Override
+            public void updated(T item) {
+                for (CatalogListener<? super T> listener : listeners) listener.updated(item);
+            }
+
+            @Override
+            public void removed(T item) {
+                for (CatalogListener<? super T> listener : listeners) listener.removed(item);
+            }
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package org.diariocultural;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Coleção de mídias indexada pelo id (bookId, movieId, seriesId), preservando a ordem de inserção.
+ * <p>
+ * Os itens ficam em um array na ordem em que foram adicionados e um {@link IntIntHashMap}
+ * guarda a posição de cada id. Busca, substituição e remoção por id são O(1); a remoção
+ * deixa uma posição vazia, reaproveitada quando o array é compactado (custo amortizado O(1)).
+ * Uma atualização mantém a posição original do item, como o {@code set(i, ...)} fazia.
+ * <p>
+ * Leituras da coleção inteira usam {@link #snapshot()}: uma lista imutável criada uma vez
+ * por alteração e reaproveitada por todas as leituras seguintes.
+ * <p>
+ * As alterações, {@link #get(int)}, {@link #size()} e a criação do snapshot são sincronizadas,
+ * e o snapshot pronto é publicado num campo volátil: outras threads (ex: as buscas em segundo
+ * plano) podem chamar {@link #snapshot()} enquanto a thread da interface altera a coleção.
+ * Já o {@link #iterator()} (e os métodos herdados que o usam) percorre o array sem lock e
+ * serve só para a thread que faz as alterações.
+ *
+ * @param <T> tipo de mídia.
+ */
+public class IdIndex<T> extends AbstractCollection<T> {
+
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 16;
+
+    private final ToIntFunction<? super T> idExtractor;
+    private final IntIntHashMap positions = new IntIntHashMap();
+    private Object[] items = new Object[16];
+    private int end = 0;   // primeira posição livre no final do array
+    private int size = 0;
+    private int modCount = 0;
+    /**
+     * Última lista devolvida por {@link #snapshot()}; volta a {@code null} (dentro do lock)
+     * a cada alteração e é recriada na próxima chamada.
+     */
+    private volatile List<T> snapshot;
+
+    /** @param idExtractor função que extrai o id do item (ex: {@code Book::getBookId}). */
+    public IdIndex(ToIntFunction<? super T> idExtractor) {
+        this.idExtractor = idExtractor;
+    }
+
+    /** @return item com o id informado, ou {@code null}. */
+    @SuppressWarnings("unchecked")
+    public synchronized T get(int id) {
+        int position = positions.get(id, -1);
+        return position >= 0 ? (T) items[position] : null;
+    }
+
+    /**
+     * Adiciona o item ao final, se ainda não houver item com o mesmo id.
+     * @return {@code false} se o id já existia (nada é alterado).
+     */
+    @Override
+    public synchronized boolean add(T item) {
+        int id = idExtractor.applyAsInt(item);
+        if (positions.containsKey(id)) return false;
+        append(id, item);
+        return true;
+    }
+
+    /**
+     * Insere ou substitui pelo id. Um item substituído mantém sua posição.
+     * @return item anterior com o mesmo id, ou {@code null}.
+     */
+    public synchronized T put(T item) {
+        T previous = replace(item);
+        if (previous == null) {
+            append(idExtractor.applyAsInt(item), item);
+        }
+        return previous;
+    }
+
+    /**
+     * Substitui o item com o mesmo id, mantendo sua posição.
+     * @return item anterior, ou {@code null} se o id não existia (nada é alterado).
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T replace(T item) {
+        int position = positions.get(idExtractor.applyAsInt(item), -1);
+        if (position < 0) return null;
+        T previous = (T) items[position];
+        items[position] = item;
+        modified();
+        return previous;
+    }
+
+    /**
+     * Remove o item com o id informado.
+     * @return item removido, ou {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T removeId(int id) {
+        int position = positions.get(id, -1);
+        if (position < 0) return null;
+        T removed = (T) items[position];
+        positions.remove(id);
+        items[position] = null;
+        size--;
+        modified();
+        int tombstones = end - size;
+        if (tombstones > MIN_TOMBSTONES_TO_COMPACT && tombstones > size) {
+            compact();
+        }
+        return removed;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (o == null) return false;
+        T item = (T) o;
+        return removeId(idExtractor.applyAsInt(item)) != null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(items, 0, end, null);
+        positions.clear();
+        end = 0;
+        size = 0;
+        modified();
+    }
+
+    /** @return cópia dos itens, na ordem de inserção. */
+    public List<T> toList() {
+        return new ArrayList<>(snapshot());
+    }
+
+    /**
+     * Retorna os itens, na ordem de inserção, como uma lista imutável que não muda com
+     * alterações posteriores. Enquanto a coleção não for alterada, devolve sempre a mesma
+     * instância, sem copiar nada; a primeira chamada após uma alteração copia os itens uma vez.
+     *
+     * @return lista somente leitura com os itens atuais.
+     */
+    public List<T> snapshot() {
+        List<T> current = snapshot;
+        return current != null ? current : createSnapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized List<T> createSnapshot() {
+        List<T> current = snapshot;
+        if (current == null) {
+            Object[] copy = new Object[size];
+            int i = 0;
+            for (int position = 0; position < end; position++) {
+                if (items[position] != null) copy[i++] = items[position];
+            }
+            current = Collections.unmodifiableList(Arrays.asList((T[]) copy));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int cursor = skipEmpty(0);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor >= end) throw new NoSuchElementException();
+                T item = (T) items[cursor];
+                cursor = skipEmpty(cursor + 1);
+                return item;
+            }
+        };
+    }
+
+    private int skipEmpty(int from) {
+        while (from < end && items[from] == null) from++;
+        return from;
+    }
+
+    private void append(int id, T item) {
+        if (end == items.length) {
+            if (end - size > items.length / 2) {
+                compact();
+            } else {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+        }
+        positions.put(id, end);
+        items[end++] = item;
+        size++;
+        modified();
+    }
+
+    /** Chamado (com o lock) após cada alteração: invalida o iterador e o snapshot atuais. */
+    private void modified() {
+        modCount++;
+        snapshot = null;
+    }
+
+    /** Remove as posições vazias, preservando a ordem e atualizando as posições no mapa. */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < end; read++) {
+            Object item = items[read];
+            if (item == null) continue;
+            if (write != read) {
+                items[write] = item;
+                positions.put(idExtractor.applyAsInt((T) item), write);
+            }
+            write++;
+        }
+        Arrays.fill(items, write, end, null);
+        end = write;
+    }
+}
@@ -0,0 +1,136 @@
+package org.diariocultural;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de {@code int} para {@code int} sem boxing.
+ * <p>
+ * Endereçamento aberto com sondagem linear e remoção por deslocamento reverso
+ * (sem lápides), mantendo busca, inserção e remoção em O(1) amortizado.
+ * Usado pelos índices por id, onde um {@code HashMap<Integer, ...>} criaria
+ * um objeto {@code Integer} e uma entrada para cada mídia do catálogo.
+ */
+public class IntIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    /** @param expectedSize quantidade de chaves esperada (evita redimensionamentos). */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return valor associado à chave ou {@code defaultValue} se ela não existir.
+     */
+    public int get(int key, int defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * Associa o valor à chave, substituindo o anterior.
+     */
+    public void put(int key, int value) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove a chave.
+     * @return {@code true} se a chave existia.
+     */
+    public boolean remove(int key) {
+        int slot = indexOf(key);
+        if (slot < 0) return false;
+        // Deslocamento reverso: puxa para trás as chaves da mesma sequência de sondagem
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int indexOf(int key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /** Espalha ids sequenciais pela tabela (hash de Fibonacci). */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
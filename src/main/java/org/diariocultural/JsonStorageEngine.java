@@ -0,0 +1,38 @@
+package org.diariocultural;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Motor de armazenamento em JSON indentado (formato original dos arquivos em data/).
+ * A leitura é incremental, via {@link StreamingJsonLoader}.
+ */
+public class JsonStorageEngine implements StorageEngine {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public String fileExtension() {
+        return "json";
+    }
+
+    @Override
+    public <T> void write(OutputStream out, List<T> items, Class<T> type) throws IOException {
+        objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, type))
+                .writeValue(out, items);
+    }
+
+    @Override
+    public <T> int read(InputStream in, Class<T> type, Consumer<? super T> sink) throws IOException {
+        return StreamingJsonLoader.load(in, type, objectMapper, sink);
+    }
+}
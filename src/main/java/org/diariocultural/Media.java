@@ -1,46 +1,164 @@
-package org.diariocultural;
-
-import java.util.List;
-
-/**
- * Representa mídia genérica com título, gêneros, ano de lançamento e avaliações.
- */
-public abstract class Media {
-    /** Título principal da mídia */
-    protected String title;
-    /** Lista de gêneros associados */
-    protected List<String> genre;
-    /** Ano de lançamento */
-    protected int releaseYear;
-    /** Informações de avaliação (criada ao instanciar) */
-    private final ReviewInfo reviewInfo;
-
-    /**
-     * Constrói mídia com dados básicos e inicializa avaliações.
-     * @param title título da mídia
-     * @param genre lista de gêneros
-     * @param releaseYear ano de lançamento
-     */
-    public Media(String title, List<String> genre, int releaseYear) {
-        this.title = title;
-        this.genre = genre;
-        this.releaseYear = releaseYear;
-        this.reviewInfo = new ReviewInfo();
-    }
-
-    // --- Getters e Setters básicos ---
-    public String getTitle()                         { return title; }
-    public void setTitle(String title)               { this.title = title; }
-    public List<String> getGenre()                   { return genre; }
-    public void setGenre(List<String> genre)         { this.genre = genre; }
-    public int getReleaseYear()                      { return releaseYear; }
-    public void setReleaseYear(int releaseYear)      { this.releaseYear = releaseYear; }
-
-    // --- Métodos de avaliação ---
-    /** @return objeto que gerencia avaliações desta mídia */
-    public ReviewInfo getReviewInfo()                { return reviewInfo; }
-    /** Adiciona nova avaliação com nota e comentário */
-    public void addReview(int rating, String comment){ reviewInfo.evaluate(rating, comment); }
-    /** Retorna média das avaliações registradas */
-    public abstract double getAverageRating();
-}
+package org.diariocultural;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representa mídia genérica com título, gêneros, ano de lançamento e avaliações.
+ */
+public abstract class Media {
+    /** Título principal da mídia */
+    protected String title;
+    /** Gêneros associados, como códigos na {@link SymbolTable} ({@code null} se não informados) */
+    private int[] genreIds;
+    /** Ano de lançamento */
+    protected int releaseYear;
+    /** Informações de avaliação; {@code null} até a primeira avaliação */
+    private ReviewInfo reviewInfo;
+
+    /** Separa os campos dentro da chave de busca; nunca aparece em uma consulta. */
+    public static final char SEARCH_FIELD_SEPARATOR = '\u0000';
+
+    // Chaves de busca normalizadas (não persistidas), calculadas sob demanda e
+    // descartadas pelos setters dos campos pesquisáveis
+    private volatile String searchKey;
+    private volatile String[] genreKeys;
+    private volatile String yearKey;
+
+    /**
+     * Constrói mídia com dados básicos e inicializa avaliações.
+     * @param title título da mídia
+     * @param genre lista de gêneros
+     * @param releaseYear ano de lançamento
+     */
+    public Media(String title, List<String> genre, int releaseYear) {
+        this(title, genre, releaseYear, null);
+    }
+
+    /**
+     * Constrói mídia com avaliações já existentes (ex: lidas do JSON).
+     * @param reviewInfo avaliações iniciais; se for {@code null} ou vazio, nenhum objeto é
+     *                   guardado até a primeira avaliação
+     */
+    protected Media(String title, List<String> genre, int releaseYear, ReviewInfo reviewInfo) {
+        this.title = title;
+        this.genreIds = SymbolTable.shared().encode(genre);
+        this.releaseYear = releaseYear;
+        this.reviewInfo = (reviewInfo == null || reviewInfo.getReviewCount() == 0) ? null : reviewInfo;
+    }
+
+    // --- Getters e Setters básicos ---
+    public String getTitle()                         { return title; }
+    public void setTitle(String title)               { this.title = title; invalidateSearchKeys(); }
+    public List<String> getGenre()                   { return SymbolTable.shared().decode(genreIds); }
+    public void setGenre(List<String> genre)         { this.genreIds = SymbolTable.shared().encode(genre); invalidateSearchKeys(); }
+    public int getReleaseYear()                      { return releaseYear; }
+    public void setReleaseYear(int releaseYear)      { this.releaseYear = releaseYear; invalidateSearchKeys(); }
+
+    // --- Chaves de busca ---
+
+    /**
+     * Chave de busca por texto: título e demais campos pesquisáveis da mídia (ver
+     * {@link #collectSearchFields(List)}), normalizados com {@link TextNormalizer} e separados
+     * por {@link #SEARCH_FIELD_SEPARATOR}.
+     */
+    @JsonIgnore
+    public String getSearchKey() {
+        String key = searchKey;
+        if (key == null) {
+            List<String> fields = new ArrayList<>();
+            collectSearchFields(fields);
+            StringBuilder builder = new StringBuilder();
+            for (String field : fields) {
+                if (field == null || field.isEmpty()) continue;
+                if (!builder.isEmpty()) builder.append(SEARCH_FIELD_SEPARATOR);
+                builder.append(TextNormalizer.normalize(field));
+            }
+            searchKey = key = builder.toString();
+        }
+        return key;
+    }
+
+    /** @return gêneros normalizados (não altere o array retornado). */
+    @JsonIgnore
+    public String[] getGenreKeys() {
+        String[] keys = genreKeys;
+        if (keys == null) {
+            List<String> genre = getGenre();
+            keys = genre == null ? new String[0] : new String[genre.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = TextNormalizer.normalize(genre.get(i));
+            }
+            genreKeys = keys;
+        }
+        return keys;
+    }
+
+    /** @return ano de lançamento como texto, para busca por substring. */
+    @JsonIgnore
+    public String getYearKey() {
+        String key = yearKey;
+        if (key == null) {
+            yearKey = key = String.valueOf(getReleaseYear());
+        }
+        return key;
+    }
+
+    /** @param key consulta já normalizada. @return {@code true} se algum gênero contém a consulta. */
+    public boolean matchesGenre(String key) {
+        for (String genreKey : getGenreKeys()) {
+            if (genreKey.contains(key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Busca usada pelos controladores: texto, gêneros ou ano contêm a consulta.
+     * @param key consulta já normalizada (ver {@link TextNormalizer#normalize(String)}).
+     */
+    public boolean matchesSearch(String key) {
+        return getSearchKey().contains(key) || matchesGenre(key) || getYearKey().contains(key);
+    }
+
+    /**
+     * Informa os campos cobertos pela busca por texto. As subclasses acrescentam os seus
+     * (autor, diretor, elenco...) e devem chamar {@link #invalidateSearchKeys()} nos setters deles.
+     */
+    protected void collectSearchFields(List<String> fields) {
+        fields.add(title);
+    }
+
+    /** Descarta as chaves de busca; serão recalculadas no próximo acesso. */
+    protected void invalidateSearchKeys() {
+        searchKey = null;
+        genreKeys = null;
+        yearKey = null;
+    }
+
+    // --- Métodos de avaliação ---
+    /**
+     * @return objeto que gerencia avaliações desta mídia; {@link ReviewInfo#EMPTY} (somente leitura)
+     *         enquanto não houver avaliações. Para avaliar, use {@link #addReview(int, String)}.
+     */
+    public ReviewInfo getReviewInfo() {
+        ReviewInfo info = reviewInfo;
+        return info != null ? info : ReviewInfo.EMPTY;
+    }
+
+    /** Define as avaliações da mídia; {@code null} ou {@link ReviewInfo#EMPTY} voltam ao estado sem avaliações. */
+    public void setReviewInfo(ReviewInfo reviewInfo) {
+        this.reviewInfo = reviewInfo == ReviewInfo.EMPTY ? null : reviewInfo;
+    }
+
+    /** Adiciona nova avaliação com nota e comentário, criando o {@link ReviewInfo} na primeira delas */
+    public void addReview(int rating, String comment) {
+        if (reviewInfo == null) {
+            reviewInfo = new ReviewInfo();
+        }
+        reviewInfo.evaluate(rating, comment);
+    }
+    /** Retorna média das avaliações registradas */
+    public abstract double getAverageRating();
+}
@@ -0,0 +1,388 @@
+package org.diariocultural;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Journal de mutações (write-ahead log) de um tipo de mídia.
+ * Em vez de reescrever o arquivo JSON completo a cada alteração, cada adição,
+ * atualização ou remoção é anexada como uma linha ao segmento ativo do journal
+ * (ex: {@code data/books.000003.journal}), contendo apenas o registro alterado.
+ * <p>
+ * Ao carregar, os segmentos são reaplicados, em ordem, sobre o último snapshot JSON.
+ * Quando o journal passa de {@link #COMPACTION_THRESHOLD_BYTES}, um novo snapshot é
+ * gravado em segundo plano. Os segmentos só são apagados uma compactação depois: os que
+ * vêm depois da geração anterior do snapshot ({@code .bak}, ver {@link SnapshotFiles})
+ * continuam no disco, para que voltar a ela na inicialização não perca nenhuma alteração.
+ * <p>
+ * O arquivo {@code <base>.generation} guarda a última geração coberta pelo snapshot principal e
+ * a coberta pelo {@code .bak}. Na inicialização só são reaplicados os segmentos posteriores à
+ * versão que foi de fato carregada ({@link SnapshotFiles.Source}): um segmento já incluído no
+ * snapshot poderia desfazer uma alteração que está no snapshot mas não no journal (ex: uma
+ * entrada que não pôde ser serializada).
+ * <p>
+ * As entradas são serializadas na thread que fez a alteração, mas gravadas pelo
+ * {@link PersistenceService}: várias alterações seguidas resultam em uma única escrita.
+ * <p>
+ * Formato de cada linha: {@code {"op":"UPDATE","id":3,"record":{...}}}.
+ * ADD/UPDATE substituem o registro pelo id e DELETE ignora ids ausentes.
+ *
+ * @param <T> tipo de mídia registrado (Book, Movie ou Series).
+ */
+public class MediaJournal<T> {
+
+    /** Tipo de mutação registrada em cada entrada do journal. */
+    public enum Operation { ADD, UPDATE, DELETE }
+
+    /**
+     * Grava o snapshot completo, já serializado, de uma lista de mídias.
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        /** @return {@code true} se o snapshot foi gravado com sucesso. */
+        boolean write(byte[] content);
+    }
+
+    /** Tamanho (em bytes) a partir do qual o journal é compactado em um novo snapshot. */
+    public static final long COMPACTION_THRESHOLD_BYTES = 512 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /** Entrada serializada em cada linha do journal. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Entry(Operation op, int id, Object record) {}
+
+    /** Linha já serializada, aguardando gravação no segmento da sua geração. */
+    private record PendingLine(int generation, byte[] bytes) {}
+
+    private final File directory;
+    private final String baseName;
+    private final Class<T> type;
+    private final ToIntFunction<T> idExtractor;
+    private final Pattern segmentPattern;
+    private final PersistenceService persistence;
+
+    private int activeGeneration = 1;
+    /** Última geração do journal coberta pelo snapshot principal (0 = nenhuma). */
+    private int snapshotGeneration = 0;
+    /** Última geração coberta pela geração anterior do snapshot, o {@code .bak} (0 = nenhuma). */
+    private int previousSnapshotGeneration = 0;
+    private long journalSize = 0;
+    private boolean writeFailed = false;
+    /**
+     * Uma gravação falhou e suas linhas voltaram para a fila: a próxima gravação começa com uma
+     * quebra de linha, para não emendar numa linha que tenha ficado pela metade no segmento.
+     */
+    private boolean retryingLines = false;
+    private List<PendingLine> pendingLines = new ArrayList<>();
+
+    /**
+     * @param directory diretório de dados (o mesmo do snapshot JSON).
+     * @param baseName prefixo dos segmentos (ex: "books").
+     * @param type classe dos registros, usada na desserialização.
+     * @param idExtractor função que extrai o id do registro (ex: {@code Book::getBookId}).
+     * @param persistence serviço que executa as gravações em segundo plano.
+     */
+    public MediaJournal(String directory, String baseName, Class<T> type, ToIntFunction<T> idExtractor,
+                        PersistenceService persistence) {
+        this.persistence = persistence;
+        this.directory = new File(directory);
+        this.baseName = baseName;
+        this.type = type;
+        this.idExtractor = idExtractor;
+        this.segmentPattern = Pattern.compile(Pattern.quote(baseName) + "\\.(\\d+)\\.journal");
+    }
+
+    /**
+     * Anexa uma mutação ao segmento ativo. O registro é serializado imediatamente
+     * e a gravação em disco é feita em segundo plano.
+     *
+     * @param op operação realizada.
+     * @param record registro afetado (para DELETE, apenas o id é gravado).
+     * @return {@code false} se o registro não pôde ser serializado; o chamador deve
+     *         então gravar um snapshot completo.
+     */
+    public boolean append(Operation op, T record) {
+        return appendAll(op, List.of(record));
+    }
+
+    /**
+     * Anexa a mesma operação para vários registros, gravados juntos em uma única escrita.
+     *
+     * @return {@code false} se algum registro não pôde ser serializado (nada é anexado).
+     */
+    public boolean appendAll(Operation op, Collection<? extends T> records) {
+        List<byte[]> lines = new ArrayList<>(records.size());
+        try {
+            for (T record : records) {
+                Entry entry = new Entry(op, idExtractor.applyAsInt(record), op == Operation.DELETE ? null : record);
+                lines.add(MAPPER.writeValueAsBytes(entry));
+            }
+        } catch (JsonProcessingException e) {
+            System.err.println("Erro ao serializar entrada do journal '" + baseName + "': " + e.getMessage());
+            return false;
+        }
+        synchronized (this) {
+            for (byte[] line : lines) {
+                pendingLines.add(new PendingLine(activeGeneration, line));
+                journalSize += line.length + 1;
+            }
+        }
+        persistence.submit(baseName + ".journal", this::writePendingLines);
+        return true;
+    }
+
+    /**
+     * @return {@code true} se o journal passou do limite ou se uma gravação falhou;
+     *         em ambos os casos um snapshot completo deve ser gravado.
+     */
+    public synchronized boolean needsCompaction() {
+        return writeFailed || journalSize >= COMPACTION_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Grava, em uma única escrita por segmento, todas as linhas pendentes e força
+     * os dados para o disco. Executado na thread de persistência.
+     * Se a gravação falhar, as linhas ainda não gravadas voltam para o início da fila.
+     */
+    private void writePendingLines() throws IOException {
+        List<PendingLine> batch;
+        boolean lineBreakFirst;
+        synchronized (this) {
+            if (pendingLines.isEmpty()) return;
+            batch = pendingLines;
+            pendingLines = new ArrayList<>();
+            lineBreakFirst = retryingLines;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            requeue(batch);
+            throw new IOException("Falha ao criar diretório: " + directory.getAbsolutePath());
+        }
+        int start = 0;
+        while (start < batch.size()) {
+            int generation = batch.get(start).generation();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            if (lineBreakFirst) buffer.write('\n'); // Linhas em branco são ignoradas na reaplicação
+            int end = start;
+            while (end < batch.size() && batch.get(end).generation() == generation) {
+                buffer.write(batch.get(end).bytes());
+                buffer.write('\n');
+                end++;
+            }
+            try (FileOutputStream out = new FileOutputStream(segmentFile(generation), true)) {
+                buffer.writeTo(out);
+                out.getChannel().force(false);
+            } catch (IOException e) {
+                requeue(batch.subList(start, batch.size()));
+                throw e;
+            }
+            start = end;
+        }
+        if (lineBreakFirst) {
+            synchronized (this) {
+                retryingLines = false;
+            }
+        }
+    }
+
+    /**
+     * Devolve ao início da fila as linhas que não foram gravadas, antes das que chegaram
+     * durante a tentativa, e marca a falha para que o controlador grave um snapshot.
+     */
+    private synchronized void requeue(List<PendingLine> unwritten) {
+        List<PendingLine> lines = new ArrayList<>(unwritten);
+        lines.addAll(pendingLines);
+        pendingLines = lines;
+        retryingLines = true;
+        writeFailed = true;
+    }
+
+    private synchronized void markWriteFailed() {
+        writeFailed = true;
+    }
+
+    /**
+     * Reaplica, em ordem, os segmentos posteriores ao snapshot carregado.
+     * Linhas corrompidas (ex: a última linha de uma gravação interrompida) são ignoradas.
+     * Novas mutações passam a ser gravadas em um segmento novo.
+     *
+     * @param items registros lidos do snapshot; recebe as alterações reaplicadas.
+     * @param loaded versão do snapshot que foi carregada; os segmentos que ela já cobre são pulados.
+     * @param listener avisado de cada alteração reaplicada.
+     */
+    public synchronized void replay(IdIndex<T> items, SnapshotFiles.Source loaded,
+                                    CatalogListener<? super T> listener) {
+        readSnapshotGenerations();
+        int covered = switch (loaded) {
+            case CURRENT -> snapshotGeneration;
+            case PREVIOUS -> previousSnapshotGeneration;
+            case NONE -> 0;
+        };
+        int lastGeneration = Math.max(snapshotGeneration, previousSnapshotGeneration);
+        int applied = 0;
+        journalSize = 0;
+        for (Map.Entry<Integer, File> segment : listSegments().entrySet()) {
+            lastGeneration = Math.max(lastGeneration, segment.getKey());
+            if (segment.getKey() <= covered) continue;
+            journalSize += segment.getValue().length();
+            try (BufferedReader reader = Files.newBufferedReader(segment.getValue().toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        JsonNode node = MAPPER.readTree(line);
+                        int id = node.get("id").asInt();
+                        Operation op = Operation.valueOf(node.get("op").asText());
+                        if (op == Operation.DELETE) {
+                            T removed = items.removeId(id);
+                            if (removed != null) listener.removed(removed);
+                        } else {
+                            T record = MAPPER.treeToValue(node.get("record"), type);
+                            if (items.put(record) == null) {
+                                listener.added(record);
+                            } else {
+                                listener.updated(record);
+                            }
+                        }
+                        applied++;
+                    } catch (JsonProcessingException | RuntimeException e) {
+                        System.err.println(" Entrada inválida ignorada em " + segment.getValue() + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println(" Erro ao ler o journal " + segment.getValue() + ": " + e.getMessage());
+            }
+        }
+        // Nunca continua um segmento antigo (ele pode terminar em uma linha incompleta) nem reusa
+        // uma geração já coberta por um snapshot, mesmo que o segmento dela não exista mais
+        activeGeneration = lastGeneration + 1;
+        if (applied > 0) {
+            System.out.println(" " + applied + " alterações do journal '" + baseName + "' reaplicadas.");
+        }
+    }
+
+    /**
+     * Inicia um novo segmento e grava, em segundo plano, o snapshot que cobre os anteriores.
+     * Depois que o snapshot é gravado com sucesso, o anterior passa a ser a geração {@code .bak}
+     * e são apagados apenas os segmentos que ela já cobre; os seguintes ficam para a próxima
+     * compactação.
+     * Se um snapshot anterior ainda estiver na fila, ele é substituído por este.
+     *
+     * @param content estado atual já serializado na thread que altera os registros (ex: por
+     *                {@link StorageEngine#encode(List, Class)}), nunca os objetos vivos, que
+     *                podem mudar enquanto a gravação espera na fila.
+     * @param writer função que grava o snapshot completo.
+     */
+    public synchronized void compactInBackground(byte[] content, SnapshotWriter writer) {
+        int coveredGeneration = activeGeneration;
+        activeGeneration++;
+        journalSize = 0;
+        writeFailed = false;
+        persistence.submit(baseName + ".snapshot", () -> {
+            // Linhas já cobertas pelo snapshot vão para o segmento antigo antes de ele ser apagado
+            writePendingLines();
+            if (writer.write(content)) {
+                deleteSegmentsUpTo(recordSnapshotGeneration(coveredGeneration));
+            } else {
+                markWriteFailed();
+                throw new IOException("Snapshot '" + baseName + "' não foi gravado; o journal continua valendo");
+            }
+        });
+    }
+
+    /**
+     * Registra a geração coberta pelo novo snapshot; a que era do principal passa a ser a do
+     * {@code .bak}. Uma queda entre o rename do snapshot e este registro faz a próxima
+     * inicialização reaplicar segmentos que o snapshot já contém; como eles terminam exatamente no
+     * estado gravado, o resultado só difere se alguma alteração desse intervalo ficou fora do journal.
+     *
+     * @return geração coberta pelo snapshot anterior (agora a geração {@code .bak}); 0 se o
+     *         registro falhar, para que nenhum segmento seja apagado.
+     */
+    private int recordSnapshotGeneration(int generation) {
+        int previous;
+        synchronized (this) {
+            previous = snapshotGeneration;
+            previousSnapshotGeneration = previous;
+            snapshotGeneration = generation;
+        }
+        try {
+            byte[] content = (generation + " " + previous + "\n").getBytes(StandardCharsets.UTF_8);
+            // Sem .bak: cada geração do snapshot já sabe, por este arquivo, até onde foi coberta
+            SnapshotFiles.writeAtomically(generationFile(), out -> out.write(content), false);
+            // Versões antigas deixavam um <base>.generation.bak sem uso
+            Files.deleteIfExists(SnapshotFiles.previousGeneration(generationFile()).toPath());
+            return previous;
+        } catch (IOException e) {
+            System.err.println(" Erro ao registrar a geração do snapshot '" + baseName + "': " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Lê as gerações registradas por {@link #recordSnapshotGeneration(int)}: a do snapshot principal
+     * e a do {@code .bak}. Um arquivo antigo, só com a primeira, não diz nada sobre o {@code .bak}
+     * (0: todos os segmentos são reaplicados sobre ele); um arquivo ilegível zera as duas.
+     */
+    private void readSnapshotGenerations() {
+        snapshotGeneration = 0;
+        previousSnapshotGeneration = 0;
+        File file = generationFile();
+        if (!file.isFile()) return;
+        try {
+            String[] fields = Files.readString(file.toPath(), StandardCharsets.UTF_8).trim().split("\\s+");
+            int current = Integer.parseInt(fields[0]);
+            previousSnapshotGeneration = fields.length > 1 ? Integer.parseInt(fields[1]) : 0;
+            snapshotGeneration = current;
+        } catch (IOException | NumberFormatException e) {
+            previousSnapshotGeneration = 0;
+            System.err.println(" Geração do snapshot ilegível em " + file + ": " + e.getMessage());
+        }
+    }
+
+    private File generationFile() {
+        return new File(directory, baseName + ".generation");
+    }
+
+    private void deleteSegmentsUpTo(int generation) {
+        for (Map.Entry<Integer, File> segment : listSegments().entrySet()) {
+            if (segment.getKey() <= generation && !segment.getValue().delete()) {
+                System.err.println(" Não foi possível apagar o segmento " + segment.getValue());
+            }
+        }
+    }
+
+    /** @return segmentos existentes no diretório, ordenados pela geração. */
+    private SortedMap<Integer, File> listSegments() {
+        SortedMap<Integer, File> segments = new TreeMap<>();
+        File[] files = directory.listFiles();
+        if (files == null) return segments;
+        for (File file : files) {
+            Matcher matcher = segmentPattern.matcher(file.getName());
+            if (matcher.matches() && file.isFile()) {
+                segments.put(Integer.parseInt(matcher.group(1)), file);
+            }
+        }
+        return segments;
+    }
+
+    private File segmentFile(int generation) {
+        return new File(directory, String.format("%s.%06d.journal", baseName, generation));
+    }
+}
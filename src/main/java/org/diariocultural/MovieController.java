@@ -1,101 +1,229 @@
-package org.diariocultural;
-
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class MovieController {
-
-    private List<Movie> movies;
-    private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "movies.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
-
-    public MovieController() {
-        loadData();
-        if (this.movies == null) {
-            this.movies = new ArrayList<>();
-        }
-        Movie.updateNextIdBasedOnLoadedData(this.movies);
-    }
-
-    public void addMovieViaObject(Movie movie) {
-        if (movie != null) {
-            this.movies.add(movie);
-            saveData();
-        }
-    }
-
-    public void removeMovie(Movie movieToRemove) {
-        if (movieToRemove != null) {
-            movies.remove(movieToRemove);
-            saveData();
-        }
-    }
-
-    public void updateMovie(Movie updatedMovie) {
-        for (int i = 0; i < movies.size(); i++) {
-            if (movies.get(i).getMovieId() == updatedMovie.getMovieId()) {
-                movies.set(i, updatedMovie);
-                saveData();
-                return;
-            }
-        }
-    }
-
-    public List<Movie> getAllMovies() {
-        return new ArrayList<>(this.movies);
-    }
-
-    public List<Movie> searchMovies(String criteria) {
-        if (criteria == null || criteria.isBlank()) {
-            return getAllMovies();
-        }
-        String lowerCriteria = criteria.toLowerCase().trim();
-        return movies.stream()
-                .filter(movie -> movie.getTitle().toLowerCase().contains(lowerCriteria) ||
-                        movie.getDirector().toLowerCase().contains(lowerCriteria) ||
-                        String.valueOf(movie.getReleaseYear()).contains(lowerCriteria) ||
-                        movie.getGenre().stream().anyMatch(g -> g.toLowerCase().contains(lowerCriteria)) ||
-                        movie.getCast().stream().anyMatch(a -> a.toLowerCase().contains(lowerCriteria)))
-                .collect(Collectors.toList());
-    }
-
-    private void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                dataDir.mkdirs();
-            }
-            objectMapper.writeValue(new File(FILE_PATH), movies);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        File file = new File(FILE_PATH);
-        if (file.exists() && file.length() > 0) {
-            try {
-                this.movies = objectMapper.readValue(file, new TypeReference<>() {});
-                System.out.println("Dados de livros carregados com sucesso de " + FILE_PATH);
-            } catch (IOException e) {
-                this.movies = new ArrayList<>();
-                e.printStackTrace();
-            }
-        } else {
-            this.movies = new ArrayList<>();
-        }
-    }
+package org.diariocultural;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MovieController {
+
+    private final IdIndex<Movie> movies = new IdIndex<>(Movie::getMovieId);
+    private static final String DATA_DIRECTORY = "data";
+    private static final String BASE_NAME = "movies";
+    private final StorageEngine storage;
+    private final File snapshotFile;
+    private final MediaJournal<Movie> journal;
+    private final List<CatalogListener<? super Movie>> listeners = new CopyOnWriteArrayList<>();
+    /** Repassa cada alteração a todos os {@link #listeners}, inclusive durante a carga. */
+    private final CatalogListener<Movie> notifier = CatalogListener.broadcast(listeners);
+
+    public MovieController() {
+        this(StorageEngine.getDefault());
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots.
+     */
+    public MovieController(StorageEngine storage) {
+        this(storage, DATA_DIRECTORY);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     */
+    public MovieController(StorageEngine storage, String dataDirectory) {
+        this(storage, dataDirectory, null);
+    }
+
+    /**
+     * Usa o motor padrão e o diretório "data".
+     *
+     * @param listener ouvinte registrado antes da carga (ver {@link #MovieController(StorageEngine, String, CatalogListener)}).
+     */
+    public MovieController(CatalogListener<? super Movie> listener) {
+        this(StorageEngine.getDefault(), DATA_DIRECTORY, listener);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     * @param listener ouvinte registrado antes da carga, ou {@code null}: recebe cada registro lido do
+     *                 snapshot e do journal assim que entra no catálogo e, depois, as alterações seguintes.
+     */
+    public MovieController(StorageEngine storage, String dataDirectory, CatalogListener<? super Movie> listener) {
+        if (listener != null) listeners.add(listener);
+        this.storage = storage;
+        this.snapshotFile = storage.snapshotFile(dataDirectory, BASE_NAME);
+        this.journal = new MediaJournal<>(dataDirectory, BASE_NAME, Movie.class, Movie::getMovieId,
+                PersistenceService.getDefault());
+        loadData();
+        Movie.updateNextIdBasedOnLoadedData(this.movies);
+    }
+
+    public void addMovieViaObject(Movie movie) {
+        if (movie != null) {
+            this.movies.put(movie);
+            recordMutation(MediaJournal.Operation.ADD, movie);
+        }
+    }
+
+    public void removeMovie(Movie movieToRemove) {
+        if (movieToRemove != null && movies.removeId(movieToRemove.getMovieId()) != null) {
+            recordMutation(MediaJournal.Operation.DELETE, movieToRemove);
+        }
+    }
+
+    public void updateMovie(Movie updatedMovie) {
+        if (updatedMovie != null && movies.replace(updatedMovie) != null) {
+            recordMutation(MediaJournal.Operation.UPDATE, updatedMovie);
+        }
+    }
+
+    /** @return o filme com o id informado, ou {@code null}. */
+    public Movie findById(int movieId) {
+        return movies.get(movieId);
+    }
+
+    /** @return todos os filmes, em uma lista somente leitura (ver {@link IdIndex#snapshot()}). */
+    public List<Movie> getAllMovies() {
+        return movies.snapshot();
+    }
+
+    public List<Movie> searchMovies(String criteria) {
+        if (criteria == null || criteria.isBlank()) {
+            return getAllMovies();
+        }
+        // Título, título original, diretor, elenco, gêneros e ano, sem diferenciar acentos e maiúsculas
+        String key = TextNormalizer.normalize(criteria.trim());
+        List<Movie> results = new ArrayList<>();
+        for (Movie movie : movies.snapshot()) {
+            if (movie.matchesSearch(key)) {
+                results.add(movie);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Registra um ouvinte notificado a cada adição, atualização ou remoção de filmes.
+     */
+    public void addCatalogListener(CatalogListener<? super Movie> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCatalogListener(CatalogListener<? super Movie> listener) {
+        listeners.remove(listener);
+    }
+
+    // --- Operações em lote: alteram a memória item a item e persistem uma única vez ---
+
+    /**
+     * Adiciona vários filmes de uma vez. Itens nulos são ignorados.
+     * A persistência é feita uma única vez ao final (um único lote no journal).
+     */
+    public void addAll(Collection<Movie> items) {
+        List<Movie> added = new ArrayList<>(items.size());
+        for (Movie item : items) {
+            if (item != null) {
+                movies.put(item);
+                added.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.ADD, added);
+    }
+
+    /**
+     * Atualiza vários filmes de uma vez; itens cujo id não existe são ignorados.
+     */
+    public void updateAll(Collection<Movie> items) {
+        List<Movie> updated = new ArrayList<>(items.size());
+        for (Movie item : items) {
+            if (item != null && movies.replace(item) != null) {
+                updated.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.UPDATE, updated);
+    }
+
+    /**
+     * Remove vários filmes de uma vez, pelo id.
+     */
+    public void removeAll(Collection<Movie> items) {
+        List<Movie> removed = new ArrayList<>(items.size());
+        for (Movie item : items) {
+            if (item != null && movies.removeId(item.getMovieId()) != null) {
+                removed.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.DELETE, removed);
+    }
+
+    /**
+     * Persiste um lote como uma única escrita no journal. Lotes grandes também passam pelo
+     * journal: um snapshot sozinho não impediria que entradas antigas ainda no disco fossem
+     * reaplicadas sobre ele; a compactação vem depois, pelo limite de tamanho.
+     */
+    private void recordBatch(MediaJournal.Operation op, List<Movie> changed) {
+        if (changed.isEmpty()) return;
+        if (!journal.appendAll(op, changed) || journal.needsCompaction()) {
+            saveData();
+        }
+        for (Movie item : changed) {
+            notifyListeners(op, item);
+        }
+    }
+
+    private void recordMutation(MediaJournal.Operation op, Movie movie) {
+        if (!journal.append(op, movie) || journal.needsCompaction()) {
+            saveData();
+        }
+        notifyListeners(op, movie);
+    }
+
+    private void notifyListeners(MediaJournal.Operation op, Movie item) {
+        switch (op) {
+            case ADD -> notifier.added(item);
+            case UPDATE -> notifier.updated(item);
+            case DELETE -> notifier.removed(item);
+        }
+    }
+
+    private void saveData() {
+        byte[] content;
+        try {
+            // Serializa aqui: os objetos podem ser alterados enquanto a gravação espera na fila
+            content = storage.encode(movies.snapshot(), Movie.class);
+        } catch (IOException e) {
+            System.err.println("Erro ao serializar o catálogo para " + snapshotFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return; // O journal continua valendo; a compactação é tentada de novo na próxima alteração
+        }
+        journal.compactInBackground(content, this::writeSnapshot);
+    }
+
+    private boolean writeSnapshot(byte[] content) {
+        try {
+            storage.saveSnapshot(snapshotFile, content);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void loadData() {
+        SnapshotFiles.Source loaded = SnapshotFiles.Source.NONE;
+        if (SnapshotFiles.hasSnapshot(snapshotFile)) {
+            try {
+                loaded = storage.loadSnapshot(snapshotFile, Movie.class, movies, notifier);
+                System.out.println("Dados de filmes carregados com sucesso de " + snapshotFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        journal.replay(movies, loaded, notifier);
+    }
 }
\ No newline at end of file
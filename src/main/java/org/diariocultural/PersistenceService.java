@@ -0,0 +1,139 @@
+package org.diariocultural;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serviço de persistência assíncrona (write-behind).
+ * Os controladores entregam a ele as escritas pendentes e retornam imediatamente,
+ * sem bloquear a thread da interface (JavaFX). Todas as escritas são executadas,
+ * em ordem, por uma única thread de fundo.
+ * <p>
+ * As escritas são identificadas por uma chave (ex: "books.snapshot"). Enquanto uma escrita
+ * com a mesma chave ainda estiver na fila, um novo pedido apenas a substitui, de modo que
+ * uma rajada de alterações resulta em uma única gravação com o estado mais recente.
+ * <p>
+ * Uma escrita que falha não interrompe as seguintes, mas fica registrada: o próximo
+ * {@link #flush()} completa com erro, para que quem espera pela durabilidade saiba que
+ * algo não chegou ao disco.
+ */
+public class PersistenceService {
+
+    /** Escrita executada pela thread de persistência. */
+    @FunctionalInterface
+    public interface WriteTask {
+        void write() throws IOException;
+    }
+
+    private static final PersistenceService DEFAULT = new PersistenceService();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "diario-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, WriteTask> pending = new LinkedHashMap<>();
+    /** Falhas desde o último {@link #flush()} executado (só acessado pela thread de persistência). */
+    private final List<Exception> failures = new ArrayList<>();
+
+    /** @return instância compartilhada pelos controladores da aplicação. */
+    public static PersistenceService getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Agenda uma escrita. Se já houver uma escrita pendente com a mesma chave,
+     * ela é substituída por esta e mantém sua posição na fila.
+     *
+     * @param key identifica o que está sendo gravado (ex: arquivo de destino).
+     * @param task escrita a executar na thread de persistência.
+     */
+    public synchronized void submit(String key, WriteTask task) {
+        boolean alreadyQueued = pending.containsKey(key);
+        pending.put(key, task);
+        if (!alreadyQueued) {
+            writer.execute(() -> runPending(key));
+        }
+    }
+
+    private void runPending(String key) {
+        WriteTask task;
+        synchronized (this) {
+            task = pending.remove(key);
+        }
+        if (task == null) return;
+        try {
+            task.write();
+        } catch (IOException | RuntimeException e) {
+            System.err.println(" Erro na escrita em segundo plano '" + key + "': " + e.getMessage());
+            e.printStackTrace();
+            failures.add(e);
+        }
+    }
+
+    /**
+     * @return future que completa quando todas as escritas agendadas até este momento
+     *         tiverem sido executadas. Completa com uma {@link IOException} se alguma escrita
+     *         executada desde o flush anterior falhou (as demais falhas vão como suprimidas).
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        writer.execute(() -> {
+            if (failures.isEmpty()) {
+                done.complete(null);
+                return;
+            }
+            IOException error = new IOException(failures.size() + " escrita(s) em segundo plano falharam",
+                    failures.get(0));
+            failures.subList(1, failures.size()).forEach(error::addSuppressed);
+            failures.clear();
+            done.completeExceptionally(error);
+        });
+        return done;
+    }
+
+    /**
+     * Bloqueia até que todas as escritas agendadas até agora estejam gravadas em disco.
+     * Use apenas quando a durabilidade for realmente necessária (ex: antes de sair).
+     *
+     * @throws UncheckedIOException se alguma escrita desde o flush anterior falhou.
+     */
+    public void awaitDurability() {
+        try {
+            flush().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) throw new UncheckedIOException(cause);
+            throw e;
+        }
+    }
+
+    /**
+     * Grava tudo o que estiver pendente e encerra a thread de persistência.
+     * Chamado no encerramento da aplicação.
+     *
+     * @param timeoutSeconds tempo máximo de espera.
+     */
+    public void shutdown(long timeoutSeconds) {
+        try {
+            flush().get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            System.err.println(" Tempo esgotado ao aguardar as escritas pendentes.");
+        } catch (ExecutionException e) {
+            System.err.println(" Nem todas as escritas foram gravadas: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            System.err.println(" Erro ao aguardar as escritas pendentes: " + e.getMessage());
+        }
+        writer.shutdown();
+    }
+}
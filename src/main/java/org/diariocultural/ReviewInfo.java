@@ -1,162 +1,352 @@
-package org.diariocultural;
-
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties; // Importe esta anotação
-import com.fasterxml.jackson.annotation.JsonProperty; // Import para desserialização se necessário para a lista
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-
-/**
- * Classe do modelo (Model) que gerencia uma lista de avaliações (Review).
- * Permite adicionar novas avaliações, recuperar estatísticas como
- * última nota e média de avaliações, além de acessar a lista completa.
- */
-@JsonIgnoreProperties(ignoreUnknown = true) //
-public class ReviewInfo {
-
-    /** Lista interna para armazenar as avaliações. */
-    private List<Review> reviews;
-
-    /**
-     * Construtor padrão que inicializa a lista de avaliações.
-     * Necessário para Jackson se não houver outro construtor anotado.
-     */
-    public ReviewInfo() {
-        this.reviews = new ArrayList<>();
-    }
-
-    /**
-     * Construtor para desserialização pelo Jackson, se você preferir em vez de setter.
-     *
-     * @param reviews A lista de reviews lida do JSON.
-     */
-    /*
-    @JsonCreator // Se você quiser usar construtor para desserializar 'reviews'
-    public ReviewInfo(@JsonProperty("reviews") List<Review> reviews) {
-        this.reviews = (reviews != null) ? new ArrayList<>(reviews) : new ArrayList<>();
-    }
-    */
-
-
-    /**
-     * Cria uma nova avaliação (Review) com a nota e comentário informados,
-     * usando a data atual como referência, e adiciona-a à lista.
-     *
-     * @param rating  Nota dada à mídia (será ajustada para o intervalo 0-5 se necessário).
-     * @param comment Comentário textual da avaliação.
-     */
-    public void evaluate(int rating, String comment) {
-        if (this.reviews == null) { // Garante que a lista exista
-            this.reviews = new ArrayList<>();
-        }
-        // Validação da nota
-        if (rating < 0) rating = 0;
-        if (rating > 5) rating = 5; // Assumindo escala 0-5
-
-        Date currentDate = new Date();
-        Review newReview = new Review(rating, comment, currentDate);
-        this.reviews.add(newReview);
-    }
-
-    /**
-     * Retorna uma cópia da lista de avaliações registradas.
-     * Este getter é usado pelo Jackson para SERIALIZAR a lista de reviews.
-     * @return Nova lista contendo os objetos {@code Review} adicionados.
-     */
-    public List<Review> getReviews() {
-        // Retorna uma cópia para proteger a lista interna de modificações externas
-        // se não for pelo Jackson
-        return (this.reviews != null) ? new ArrayList<>(this.reviews) : new ArrayList<>();
-    }
-
-    /**
-     * Define a lista de reviews.
-     * Este setter é usado pelo Jackson para DESSERIALIZAR a lista de reviews do JSON.
-     * @param reviews A lista de reviews.
-     */
-    public void setReviews(List<Review> reviews) {
-        this.reviews = (reviews != null) ? new ArrayList<>(reviews) : new ArrayList<>();
-    }
-
-
-    /**
-     * Obtém a nota (avaliação) da última avaliação registrada.
-     * Assume que a última avaliação da lista é a mais recente.
-     *
-     * @return Nota da última avaliação ou 0 caso nenhuma avaliação tenha sido registrada.
-     */
-    public int getLastRating() {
-        if (reviews == null || reviews.isEmpty()) {
-            return 0;
-        } else {
-            // Não há garantia de que a última adicionada é a "mais recente"
-            // a menos que você sempre adicione em ordem cronológica.
-            // Para pegar a mais recente de verdade, precisaria ordenar por data.
-            // Por simplicidade, pegamos a última da lista:
-            int lastIndex = reviews.size() - 1;
-            Review lastReview = reviews.get(lastIndex);
-            return lastReview.rating();
-        }
-    }
-
-    /**
-     * Retorna a quantidade total de avaliações feitas.
-     * Este método é CALCULADO e NÃO deve ser um campo no JSON.
-     * O Jackson NÃO tentará ler "reviewCount" do JSON por causa de
-     * @JsonIgnoreProperties(ignoreUnknown = true) na classe.
-     *
-     * @return Número de avaliações contidas na lista.
-     */
-    public int getReviewCount() {
-        return (reviews != null) ? reviews.size() : 0;
-    }
-
-    /**
-     * Retorna uma representação textual da última avaliação e
-     * o número total de avaliações.
-     *
-     * @return String formatada com a última nota e total de avaliações,
-     *         ou mensagem padrão caso nenhuma avaliação tenha sido feita.
-     */
-    @Override
-    public String toString() {
-        if (reviews == null || reviews.isEmpty()) {
-            return "Nenhuma avaliação";
-        }
-        return String.format("Última Nota: %d/5 (%d avaliações)", getLastRating(), getReviewCount());
-    }
-
-    /**
-     * Adiciona uma avaliação já existente à lista de avaliações.
-     * Pode ser útil para testes, importações ou cópias.
-     *
-     * @param review Objeto {@code Review} a ser adicionado. Ignorado se for {@code null}.
-     */
-    public void addReview(Review review) {
-        if (this.reviews == null) {
-            this.reviews = new ArrayList<>();
-        }
-        if (review != null) {
-            reviews.add(review);
-        }
-    }
-
-    /**
-     * Calcula e retorna a média das notas (avaliações) de todas as avaliações.
-     * Você mencionou que usa isso para séries. Isso não é um problema.
-     *
-     * @return Valor médio das notas, ou {@code 0.0} se não houver avaliações.
-     */
-    public double getAverageRating() {
-        if (reviews == null || reviews.isEmpty()) {
-            return 0.0;
-        }
-
-        double total = 0;
-        for (Review r : reviews) {
-            total += r.rating();
-        }
-
-        return total / reviews.size();
-    }
+package org.diariocultural;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties; // Importe esta anotação
+import com.fasterxml.jackson.annotation.JsonProperty; // Import para desserialização se necessário para a lista
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Classe do modelo (Model) que gerencia uma lista de avaliações (Review).
+ * Permite adicionar novas avaliações, recuperar estatísticas como
+ * última nota e média de avaliações, além de acessar a lista completa.
+ * <p>
+ * As estatísticas (soma, quantidade por nota, mínima e máxima) são mantidas a cada
+ * avaliação adicionada, então média, contagem e histograma não percorrem a lista.
+ * <p>
+ * As avaliações são guardadas em colunas (notas em {@code byte[]}, datas em milissegundos
+ * em {@code long[]} e comentários em {@code String[]}), em vez de um objeto {@link Review}
+ * com uma {@link Date} para cada uma. Os {@code Review} só são criados quando alguém os pede.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true) //
+@JsonPropertyOrder({"reviews", "averageRating", "lastRating", "reviewCount"}) // Mesma ordem dos arquivos já gravados (data/*.json)
+public class ReviewInfo {
+
+    /** Maior nota aceita; as notas vão de 0 a {@code MAX_RATING}. */
+    public static final int MAX_RATING = 5;
+
+    /**
+     * Avaliações vazias e somente leitura, devolvidas por quem ainda não recebeu nenhuma avaliação
+     * (ex: {@link Media#getReviewInfo()}), sem criar um objeto para cada item.
+     */
+    public static final ReviewInfo EMPTY = new ReviewInfo(true);
+
+    private static final byte[] NO_RATINGS = new byte[0];
+    private static final long[] NO_DATES = new long[0];
+    private static final String[] NO_COMMENTS = new String[0];
+
+    /** Valor guardado em {@link #reviewDates} para avaliações sem data. */
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 4;
+
+    // Colunas das avaliações: a posição i de cada array corresponde à i-ésima avaliação.
+    // Os arrays só crescem no fim; setReviews cria arrays novos, então as listas já
+    // devolvidas por getReviews() continuam válidas.
+    private byte[] ratings;
+    private long[] reviewDates;
+    private String[] comments;
+    private int size;
+
+    private final boolean readOnly;
+
+    /** Soma das notas de todas as avaliações. */
+    private long ratingSum;
+    /** Quantidade de avaliações por nota (índice = nota). */
+    private final int[] ratingCounts = new int[MAX_RATING + 1];
+
+    /** Avisado a cada alteração das avaliações (ex: pela temporada, para a série recalcular sua média). */
+    private Runnable changeListener;
+
+    /**
+     * Construtor padrão que inicializa a lista de avaliações.
+     * Necessário para Jackson se não houver outro construtor anotado.
+     */
+    public ReviewInfo() {
+        this(false);
+    }
+
+    private ReviewInfo(boolean readOnly) {
+        this.readOnly = readOnly;
+        clearColumns();
+    }
+
+    private void clearColumns() {
+        ratings = NO_RATINGS;
+        reviewDates = NO_DATES;
+        comments = NO_COMMENTS;
+        size = 0;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("ReviewInfo.EMPTY não pode receber avaliações.");
+        }
+    }
+
+    /**
+     * Construtor para desserialização pelo Jackson, se você preferir em vez de setter.
+     *
+     * @param reviews A lista de reviews lida do JSON.
+     */
+    /*
+    @JsonCreator // Se você quiser usar construtor para desserializar 'reviews'
+    public ReviewInfo(@JsonProperty("reviews") List<Review> reviews) {
+        this();
+        setReviews(reviews);
+    }
+    */
+
+
+    /**
+     * Cria uma nova avaliação (Review) com a nota e comentário informados,
+     * usando a data atual como referência, e adiciona-a à lista.
+     *
+     * @param rating  Nota dada à mídia (será ajustada para o intervalo 0-5 se necessário).
+     * @param comment Comentário textual da avaliação.
+     */
+    public void evaluate(int rating, String comment) {
+        checkWritable();
+        // Validação da nota
+        if (rating < 0) rating = 0;
+        if (rating > MAX_RATING) rating = MAX_RATING;
+
+        append(rating, comment != null ? comment : "", System.currentTimeMillis());
+        changed();
+    }
+
+    /**
+     * Define quem deve ser avisado quando as avaliações mudarem.
+     * Não é um setter do Jackson: o ouvinte não faz parte do JSON.
+     */
+    void onChange(Runnable listener) {
+        if (!readOnly) this.changeListener = listener;
+    }
+
+    private void changed() {
+        if (changeListener != null) changeListener.run();
+    }
+
+    /** Grava uma avaliação no fim das colunas e a inclui nas estatísticas. */
+    private void append(int rating, String comment, long reviewDate) {
+        if (size == ratings.length) {
+            // Crescimento geométrico: o custo de cópia por avaliação é constante em média
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1) + 1);
+            ratings = Arrays.copyOf(ratings, capacity);
+            reviewDates = Arrays.copyOf(reviewDates, capacity);
+            comments = Arrays.copyOf(comments, capacity);
+        }
+        ratings[size] = (byte) rating;
+        reviewDates[size] = reviewDate;
+        comments[size] = comment;
+        size++;
+        ratingSum += rating;
+        ratingCounts[rating]++;
+    }
+
+    private void append(Review review) {
+        Date reviewDate = review.reviewDate();
+        append(review.rating(), review.comment(), reviewDate != null ? reviewDate.getTime() : NO_DATE);
+    }
+
+    /** Monta o {@link Review} da posição {@code index} a partir das colunas recebidas. */
+    private static Review reviewAt(byte[] ratings, long[] reviewDates, String[] comments, int index) {
+        long reviewDate = reviewDates[index];
+        return new Review(ratings[index], comments[index], reviewDate != NO_DATE ? new Date(reviewDate) : null);
+    }
+
+    /**
+     * Retorna as avaliações registradas até agora.
+     * Este getter é usado pelo Jackson para SERIALIZAR a lista de reviews.
+     * <p>
+     * A lista não pode ser alterada e não muda com avaliações adicionadas depois;
+     * cada {@code Review} é criado apenas quando o elemento é lido.
+     *
+     * @return Lista com as avaliações, na ordem em que foram adicionadas.
+     */
+    public List<Review> getReviews() {
+        return new ReviewList(ratings, reviewDates, comments, size);
+    }
+
+    /**
+     * Retorna uma avaliação sem montar a lista inteira.
+     *
+     * @param index Posição da avaliação (0 = a primeira adicionada).
+     * @return A avaliação da posição informada.
+     * @throws IndexOutOfBoundsException se a posição não existir.
+     */
+    public Review getReview(int index) {
+        Objects.checkIndex(index, size);
+        return reviewAt(ratings, reviewDates, comments, index);
+    }
+
+    /**
+     * Define a lista de reviews.
+     * Este setter é usado pelo Jackson para DESSERIALIZAR a lista de reviews do JSON.
+     * @param reviews A lista de reviews.
+     */
+    public void setReviews(List<Review> reviews) {
+        checkWritable();
+        clearColumns();
+        ratingSum = 0;
+        Arrays.fill(ratingCounts, 0);
+        if (reviews != null) {
+            for (Review review : reviews) {
+                if (review != null) {
+                    append(review);
+                }
+            }
+        }
+        changed();
+    }
+
+
+    /**
+     * Obtém a nota (avaliação) da última avaliação registrada.
+     * Assume que a última avaliação da lista é a mais recente.
+     *
+     * @return Nota da última avaliação ou 0 caso nenhuma avaliação tenha sido registrada.
+     */
+    public int getLastRating() {
+        if (size == 0) {
+            return 0;
+        } else {
+            // Não há garantia de que a última adicionada é a "mais recente"
+            // a menos que você sempre adicione em ordem cronológica.
+            // Para pegar a mais recente de verdade, precisaria ordenar por data.
+            // Por simplicidade, pegamos a última da lista:
+            return ratings[size - 1];
+        }
+    }
+
+    /**
+     * Retorna a quantidade total de avaliações feitas.
+     * Este método é CALCULADO e NÃO deve ser um campo no JSON.
+     * O Jackson NÃO tentará ler "reviewCount" do JSON por causa de
+     * @JsonIgnoreProperties(ignoreUnknown = true) na classe.
+     *
+     * @return Número de avaliações contidas na lista.
+     */
+    public int getReviewCount() {
+        return size;
+    }
+
+    /**
+     * Retorna uma representação textual da última avaliação e
+     * o número total de avaliações.
+     *
+     * @return String formatada com a última nota e total de avaliações,
+     *         ou mensagem padrão caso nenhuma avaliação tenha sido feita.
+     */
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "Nenhuma avaliação";
+        }
+        return String.format("Última Nota: %d/5 (%d avaliações)", getLastRating(), getReviewCount());
+    }
+
+    /**
+     * Adiciona uma avaliação já existente à lista de avaliações.
+     * Pode ser útil para testes, importações ou cópias.
+     *
+     * @param review Objeto {@code Review} a ser adicionado. Ignorado se for {@code null}.
+     */
+    public void addReview(Review review) {
+        checkWritable();
+        if (review != null) {
+            append(review);
+            changed();
+        }
+    }
+
+    /**
+     * Retorna a média das notas (avaliações) de todas as avaliações.
+     * Você mencionou que usa isso para séries. Isso não é um problema.
+     *
+     * @return Valor médio das notas, ou {@code 0.0} se não houver avaliações.
+     */
+    public double getAverageRating() {
+        int count = getReviewCount();
+        return count == 0 ? 0.0 : (double) ratingSum / count;
+    }
+
+    /**
+     * Retorna a última avaliação registrada, sem montar a lista.
+     *
+     * @return A última avaliação da lista, ou {@code null} se não houver avaliações.
+     */
+    @JsonIgnore
+    public Review getLastReview() {
+        return size == 0 ? null : reviewAt(ratings, reviewDates, comments, size - 1);
+    }
+
+    /** @return Menor nota recebida, ou 0 se não houver avaliações. */
+    @JsonIgnore
+    public int getMinRating() {
+        for (int rating = 0; rating <= MAX_RATING; rating++) {
+            if (ratingCounts[rating] > 0) return rating;
+        }
+        return 0;
+    }
+
+    /** @return Maior nota recebida, ou 0 se não houver avaliações. */
+    @JsonIgnore
+    public int getMaxRating() {
+        for (int rating = MAX_RATING; rating > 0; rating--) {
+            if (ratingCounts[rating] > 0) return rating;
+        }
+        return 0;
+    }
+
+    /**
+     * @param rating Nota de 0 a {@link #MAX_RATING}.
+     * @return Quantidade de avaliações com essa nota (0 para notas fora do intervalo).
+     */
+    public int getRatingCount(int rating) {
+        return (rating < 0 || rating > MAX_RATING) ? 0 : ratingCounts[rating];
+    }
+
+    /**
+     * Histograma das notas.
+     *
+     * @return Cópia do histograma: a posição {@code i} contém a quantidade de avaliações com nota {@code i}.
+     */
+    @JsonIgnore
+    public int[] getRatingHistogram() {
+        return ratingCounts.clone();
+    }
+
+    /**
+     * Visão somente leitura das colunas, limitada às avaliações existentes quando foi criada.
+     * Cada acesso cria o {@code Review} correspondente (com a sua própria {@code Date}).
+     */
+    private static final class ReviewList extends AbstractList<Review> implements RandomAccess {
+        private final byte[] ratings;
+        private final long[] reviewDates;
+        private final String[] comments;
+        private final int size;
+
+        ReviewList(byte[] ratings, long[] reviewDates, String[] comments, int size) {
+            this.ratings = ratings;
+            this.reviewDates = reviewDates;
+            this.comments = comments;
+            this.size = size;
+        }
+
+        @Override
+        public Review get(int index) {
+            Objects.checkIndex(index, size);
+            return reviewAt(ratings, reviewDates, comments, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
\ No newline at end of file
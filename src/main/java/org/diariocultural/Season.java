@@ -1,90 +1,116 @@
-package org.diariocultural;
-
-import com.fasterxml.jackson.annotation.JsonCreator;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-
-/**
- * Representa uma temporada de uma Série.
- */
-@JsonIgnoreProperties(ignoreUnknown = true) // Para ignorar campos JSON não mapeados na desserialização
-public class Season {
-    private int seasonNumber;
-    private int episodes;
-    private int releaseYear;
-    private List<String> cast;
-    private ReviewInfo reviewInfo; // Avaliações específicas desta temporada
-
-    /**
-     * Construtor padrão (sem argumentos) necessário para desserialização pelo Jackson,
-     * se não houver um construtor @JsonCreator abrangente.
-     */
-    public Season() {
-        this.cast = new ArrayList<>();
-        this.reviewInfo = new ReviewInfo(); // Sempre inicializa para evitar NullPointerExceptions
-    }
-
-
-    /**
-     * Construtor para DESSERIALIZAÇÃO pelo Jackson.
-     * Usado quando o Jackson lê dados do arquivo JSON para criar objetos Season.
-     */
-    @JsonCreator
-    public Season(
-            @JsonProperty("seasonNumber") int seasonNumber,
-            @JsonProperty("episodes") int episodes,
-            @JsonProperty("releaseYear") int releaseYear,
-            @JsonProperty("cast") List<String> cast,
-            @JsonProperty("reviewInfo") ReviewInfo reviewInfo) {
-        this.seasonNumber = seasonNumber;
-        this.episodes = episodes;
-        this.releaseYear = releaseYear;
-        this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>();
-        // Usa o ReviewInfo do JSON, ou cria um novo se for null
-        this.reviewInfo = Objects.requireNonNullElseGet(reviewInfo, ReviewInfo::new);
-    }
-
-    /**
-     * Adiciona uma avaliação para esta temporada específica.
-     * @param rating Nota dada.
-     * @param comment Comentário feito.
-     */
-    public void addReview(int rating, String comment) {
-        getReviewInfo().evaluate(rating, comment); // Usa o getter seguro
-    }
-
-    // --- Getters (Jackson usa para SERIALIZAR para JSON) ---
-    public int getSeasonNumber() { return seasonNumber; }
-    public int getEpisodes() { return episodes; }
-    public int getReleaseYear() { return releaseYear; }
-    public List<String> getCast() { return (cast != null) ? new ArrayList<>(cast) : new ArrayList<>(); } // Retorna cópia
-
-    public ReviewInfo getReviewInfo() {
-        // Garante que reviewInfo nunca seja null
-        if (this.reviewInfo == null) {
-            this.reviewInfo = new ReviewInfo();
-        }
-        return reviewInfo;
-    }
-
-    // --- Setters (Jackson usa para DESSERIALIZAR do JSON) ---
-    public void setSeasonNumber(int seasonNumber) { this.seasonNumber = seasonNumber; }
-    public void setEpisodes(int episodes) { this.episodes = episodes; }
-    public void setReleaseYear(int releaseYear) { this.releaseYear = releaseYear; }
-    public void setCast(List<String> cast) { this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>(); }
-    public void setReviewInfo(ReviewInfo reviewInfo) { this.reviewInfo = reviewInfo; }
-
-    @Override
-    public String toString() {
-        String castString = (cast != null && !cast.isEmpty()) ? String.join(", ", cast) : "N/A";
-        // Usa o getter seguro para reviewInfo
-        String reviewSummary = (getReviewInfo() != null) ? getReviewInfo().toString() : "Sem avaliação";
-
-        return String.format("  Temporada %d (%d): %d episódios, Elenco Adicional: [%s], Avaliação: %s",
-                seasonNumber, releaseYear, episodes, castString, reviewSummary);
-    }
+package org.diariocultural;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Representa uma temporada de uma Série.
+ * Alterações nas avaliações da temporada são repassadas à série que a contém,
+ * que só então recalcula a sua média.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true) // Para ignorar campos JSON não mapeados na desserialização
+public class Season {
+    private int seasonNumber;
+    private int episodes;
+    private int releaseYear;
+    private int[] castIds; // Códigos na SymbolTable
+    private ReviewInfo reviewInfo; // Avaliações específicas desta temporada (null até a primeira)
+    @JsonIgnore
+    private Series series; // Série que contém esta temporada (não vai para o JSON)
+
+    /**
+     * Construtor padrão (sem argumentos) necessário para desserialização pelo Jackson,
+     * se não houver um construtor @JsonCreator abrangente.
+     */
+    public Season() {
+        this.castIds = SymbolTable.shared().encodeOrEmpty(null);
+    }
+
+
+    /**
+     * Construtor para DESSERIALIZAÇÃO pelo Jackson.
+     * Usado quando o Jackson lê dados do arquivo JSON para criar objetos Season.
+     */
+    @JsonCreator
+    public Season(
+            @JsonProperty("seasonNumber") int seasonNumber,
+            @JsonProperty("episodes") int episodes,
+            @JsonProperty("releaseYear") int releaseYear,
+            @JsonProperty("cast") List<String> cast,
+            @JsonProperty("reviewInfo") ReviewInfo reviewInfo) {
+        this.seasonNumber = seasonNumber;
+        this.episodes = episodes;
+        this.releaseYear = releaseYear;
+        this.castIds = SymbolTable.shared().encodeOrEmpty(cast);
+        // Usa o ReviewInfo do JSON; temporadas sem avaliações não guardam nenhum
+        if (reviewInfo != null && reviewInfo.getReviewCount() > 0) {
+            this.reviewInfo = reviewInfo;
+            reviewInfo.onChange(this::reviewsChanged);
+        }
+    }
+
+    /**
+     * Associa a temporada à série que a contém. Chamado pela própria {@link Series}.
+     */
+    void attachTo(Series series) {
+        this.series = series;
+    }
+
+    /** Avisa a série de que a média desta temporada mudou. */
+    private void reviewsChanged() {
+        if (series != null) series.invalidateAverageRating();
+    }
+
+    /**
+     * Adiciona uma avaliação para esta temporada específica.
+     * @param rating Nota dada.
+     * @param comment Comentário feito.
+     */
+    public void addReview(int rating, String comment) {
+        if (reviewInfo == null) {
+            reviewInfo = new ReviewInfo();
+            reviewInfo.onChange(this::reviewsChanged);
+        }
+        reviewInfo.evaluate(rating, comment);
+    }
+
+    // --- Getters (Jackson usa para SERIALIZAR para JSON) ---
+    public int getSeasonNumber() { return seasonNumber; }
+    public int getEpisodes() { return episodes; }
+    public int getReleaseYear() { return releaseYear; }
+    public List<String> getCast() { return SymbolTable.shared().decode(castIds); } // Lista somente leitura
+
+    /**
+     * @return avaliações da temporada; {@link ReviewInfo#EMPTY} (somente leitura) enquanto não
+     *         houver nenhuma. Nunca retorna null.
+     */
+    public ReviewInfo getReviewInfo() {
+        ReviewInfo info = reviewInfo;
+        return info != null ? info : ReviewInfo.EMPTY;
+    }
+
+    // --- Setters (Jackson usa para DESSERIALIZAR do JSON) ---
+    public void setSeasonNumber(int seasonNumber) { this.seasonNumber = seasonNumber; }
+    public void setEpisodes(int episodes) { this.episodes = episodes; }
+    public void setReleaseYear(int releaseYear) { this.releaseYear = releaseYear; }
+    public void setCast(List<String> cast) { this.castIds = SymbolTable.shared().encodeOrEmpty(cast); }
+    public void setReviewInfo(ReviewInfo reviewInfo) {
+        this.reviewInfo = reviewInfo == ReviewInfo.EMPTY ? null : reviewInfo;
+        if (this.reviewInfo != null) this.reviewInfo.onChange(this::reviewsChanged);
+        reviewsChanged();
+    }
+
+    @Override
+    public String toString() {
+        String castString = (castIds.length > 0) ? String.join(", ", getCast()) : "N/A";
+        // Usa o getter seguro para reviewInfo
+        String reviewSummary = (getReviewInfo() != null) ? getReviewInfo().toString() : "Sem avaliação";
+
+        return String.format("  Temporada %d (%d): %d episódios, Elenco Adicional: [%s], Avaliação: %s",
+                seasonNumber, releaseYear, episodes, castString, reviewSummary);
+    }
 }
\ No newline at end of file
@@ -1,113 +1,242 @@
-package org.diariocultural;
-
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-
-public class SeriesController {
-
-    private List<Series> seriesList;
-    private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "series.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
-
-    public SeriesController() {
-        loadData();
-        if (this.seriesList == null) {
-            this.seriesList = new ArrayList<>();
-        }
-        Series.updateNextIdBasedOnLoadedData(this.seriesList);
-    }
-
-    public void addSeriesViaObject(Series series) {
-        if (series != null) {
-            this.seriesList.add(series);
-            saveData();
-        }
-    }
-
-    public void removeSeries(Series seriesToRemove) {
-        if (seriesToRemove != null) {
-            seriesList.remove(seriesToRemove);
-            saveData();
-        }
-    }
-
-    public void updateSeries(Series updatedSeries) {
-        for (int i = 0; i < seriesList.size(); i++) {
-            if (seriesList.get(i).getSeriesId() == updatedSeries.getSeriesId()) {
-                seriesList.set(i, updatedSeries);
-                saveData();
-                return;
-            }
-        }
-    }
-
-    public List<Series> getAllSeries() {
-        return new ArrayList<>(this.seriesList);
-    }
-
-    public List<Series> searchSeries(String criteria) {
-        if (criteria == null || criteria.isBlank()) {
-            return getAllSeries();
-        }
-        String lowerCriteria = criteria.toLowerCase().trim();
-        return seriesList.stream()
-                .filter(series -> series.getTitle().toLowerCase().contains(lowerCriteria) ||
-                        String.valueOf(series.getReleaseYear()).contains(lowerCriteria) ||
-                        series.getGenre().stream().anyMatch(g -> g.toLowerCase().contains(lowerCriteria)) ||
-                        series.getCast().stream().anyMatch(a -> a.toLowerCase().contains(lowerCriteria)))
-                .collect(Collectors.toList());
-    }
-
-    // --- Métodos de Persistência JSON ---
-
-    private void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT); // JSON formatado
-        // objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // Se tiver Datas
-
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                if (!dataDir.mkdirs()) {
-                    System.err.println(" Falha ao criar diretório de dados: " + dataDir.getAbsolutePath());
-                    return;
-                }
-            }
-            objectMapper.writeValue(new File(FILE_PATH), seriesList);
-            // System.out.println("Dados de séries salvos em " + FILE_PATH);
-        } catch (IOException e) {
-            System.err.println(" Erro ao salvar dados de séries: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private void loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false); // Ignora campos extras
-
-        File file = new File(FILE_PATH);
-        if (file.exists() && file.isFile() && file.length() > 0) {
-            try {
-                this.seriesList = objectMapper.readValue(file, new TypeReference<List<Series>>() {});
-                System.out.println(" Dados de séries carregados de " + FILE_PATH);
-            } catch (IOException e) {
-                System.err.println(" Erro ao carregar dados de séries: " + e.getMessage());
-                e.printStackTrace();
-                this.seriesList = new ArrayList<>(); // Começa vazio se houver erro
-            }
-        } else {
-            if (!file.exists()) System.out.println("Arquivo " + FILE_PATH + " não encontrado. Será criado ao salvar.");
-            else System.out.println("Arquivo " + FILE_PATH + " vazio ou é um diretório. Iniciando com lista vazia.");
-            this.seriesList = new ArrayList<>(); // Lista vazia se arquivo não existe/vazio
-        }
-    }
+package org.diariocultural;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class SeriesController {
+
+    private final IdIndex<Series> seriesList = new IdIndex<>(Series::getSeriesId);
+    private static final String DATA_DIRECTORY = "data";
+    private static final String BASE_NAME = "series";
+    private final StorageEngine storage;
+    private final File snapshotFile;
+    private final MediaJournal<Series> journal;
+    private final List<CatalogListener<? super Series>> listeners = new CopyOnWriteArrayList<>();
+    /** Repassa cada alteração a todos os {@link #listeners}, inclusive durante a carga. */
+    private final CatalogListener<Series> notifier = CatalogListener.broadcast(listeners);
+
+    public SeriesController() {
+        this(StorageEngine.getDefault());
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots.
+     */
+    public SeriesController(StorageEngine storage) {
+        this(storage, DATA_DIRECTORY);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     */
+    public SeriesController(StorageEngine storage, String dataDirectory) {
+        this(storage, dataDirectory, null);
+    }
+
+    /**
+     * Usa o motor padrão e o diretório "data".
+     *
+     * @param listener ouvinte registrado antes da carga (ver {@link #SeriesController(StorageEngine, String, CatalogListener)}).
+     */
+    public SeriesController(CatalogListener<? super Series> listener) {
+        this(StorageEngine.getDefault(), DATA_DIRECTORY, listener);
+    }
+
+    /**
+     * @param storage motor de armazenamento dos snapshots (JSON, binário, ...).
+     * @param dataDirectory diretório do snapshot e do journal (ex: "data").
+     * @param listener ouvinte registrado antes da carga, ou {@code null}: recebe cada registro lido do
+     *                 snapshot e do journal assim que entra no catálogo e, depois, as alterações seguintes.
+     */
+    public SeriesController(StorageEngine storage, String dataDirectory, CatalogListener<? super Series> listener) {
+        if (listener != null) listeners.add(listener);
+        this.storage = storage;
+        this.snapshotFile = storage.snapshotFile(dataDirectory, BASE_NAME);
+        this.journal = new MediaJournal<>(dataDirectory, BASE_NAME, Series.class, Series::getSeriesId,
+                PersistenceService.getDefault());
+        loadData();
+        Series.updateNextIdBasedOnLoadedData(this.seriesList);
+    }
+
+    public void addSeriesViaObject(Series series) {
+        if (series != null) {
+            this.seriesList.put(series);
+            recordMutation(MediaJournal.Operation.ADD, series);
+        }
+    }
+
+    public void removeSeries(Series seriesToRemove) {
+        if (seriesToRemove != null && seriesList.removeId(seriesToRemove.getSeriesId()) != null) {
+            recordMutation(MediaJournal.Operation.DELETE, seriesToRemove);
+        }
+    }
+
+    public void updateSeries(Series updatedSeries) {
+        if (updatedSeries != null && seriesList.replace(updatedSeries) != null) {
+            recordMutation(MediaJournal.Operation.UPDATE, updatedSeries);
+        }
+    }
+
+    /** @return a série com o id informado, ou {@code null}. */
+    public Series findById(int seriesId) {
+        return seriesList.get(seriesId);
+    }
+
+    /** @return todos os séries, em uma lista somente leitura (ver {@link IdIndex#snapshot()}). */
+    public List<Series> getAllSeries() {
+        return seriesList.snapshot();
+    }
+
+    public List<Series> searchSeries(String criteria) {
+        if (criteria == null || criteria.isBlank()) {
+            return getAllSeries();
+        }
+        // Título, título original, criador, elenco, gêneros e ano, sem diferenciar acentos e maiúsculas
+        String key = TextNormalizer.normalize(criteria.trim());
+        List<Series> results = new ArrayList<>();
+        for (Series series : seriesList.snapshot()) {
+            if (series.matchesSearch(key)) {
+                results.add(series);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Registra um ouvinte notificado a cada adição, atualização ou remoção de séries.
+     */
+    public void addCatalogListener(CatalogListener<? super Series> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCatalogListener(CatalogListener<? super Series> listener) {
+        listeners.remove(listener);
+    }
+
+    // --- Operações em lote: alteram a memória item a item e persistem uma única vez ---
+
+    /**
+     * Adiciona várias séries de uma vez. Itens nulos são ignorados.
+     * A persistência é feita uma única vez ao final (um único lote no journal).
+     */
+    public void addAll(Collection<Series> items) {
+        List<Series> added = new ArrayList<>(items.size());
+        for (Series item : items) {
+            if (item != null) {
+                seriesList.put(item);
+                added.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.ADD, added);
+    }
+
+    /**
+     * Atualiza várias séries de uma vez; itens cujo id não existe são ignorados.
+     */
+    public void updateAll(Collection<Series> items) {
+        List<Series> updated = new ArrayList<>(items.size());
+        for (Series item : items) {
+            if (item != null && seriesList.replace(item) != null) {
+                updated.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.UPDATE, updated);
+    }
+
+    /**
+     * Remove várias séries de uma vez, pelo id.
+     */
+    public void removeAll(Collection<Series> items) {
+        List<Series> removed = new ArrayList<>(items.size());
+        for (Series item : items) {
+            if (item != null && seriesList.removeId(item.getSeriesId()) != null) {
+                removed.add(item);
+            }
+        }
+        recordBatch(MediaJournal.Operation.DELETE, removed);
+    }
+
+    /**
+     * Persiste um lote como uma única escrita no journal. Lotes grandes também passam pelo
+     * journal: um snapshot sozinho não impediria que entradas antigas ainda no disco fossem
+     * reaplicadas sobre ele; a compactação vem depois, pelo limite de tamanho.
+     */
+    private void recordBatch(MediaJournal.Operation op, List<Series> changed) {
+        if (changed.isEmpty()) return;
+        if (!journal.appendAll(op, changed) || journal.needsCompaction()) {
+            saveData();
+        }
+        for (Series item : changed) {
+            notifyListeners(op, item);
+        }
+    }
+
+    // --- Métodos de Persistência (snapshot via StorageEngine + journal) ---
+
+    /**
+     * Anexa a mutação ao journal; o arquivo completo só é regravado quando o journal
+     * passa do limite de tamanho (ou se a escrita no journal falhar).
+     */
+    private void recordMutation(MediaJournal.Operation op, Series series) {
+        if (!journal.append(op, series) || journal.needsCompaction()) {
+            saveData();
+        }
+        notifyListeners(op, series);
+    }
+
+    private void notifyListeners(MediaJournal.Operation op, Series item) {
+        switch (op) {
+            case ADD -> notifier.added(item);
+            case UPDATE -> notifier.updated(item);
+            case DELETE -> notifier.removed(item);
+        }
+    }
+
+    private void saveData() {
+        byte[] content;
+        try {
+            // Serializa aqui: os objetos podem ser alterados enquanto a gravação espera na fila
+            content = storage.encode(seriesList.snapshot(), Series.class);
+        } catch (IOException e) {
+            System.err.println("Erro ao serializar o catálogo para " + snapshotFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return; // O journal continua valendo; a compactação é tentada de novo na próxima alteração
+        }
+        journal.compactInBackground(content, this::writeSnapshot);
+    }
+
+    private boolean writeSnapshot(byte[] content) {
+        try {
+            // Temporário + fsync + rename atômico, mantendo a geração anterior em <arquivo>.bak
+            storage.saveSnapshot(snapshotFile, content);
+            return true;
+        } catch (IOException e) {
+            System.err.println(" Erro ao salvar dados de séries: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void loadData() {
+        SnapshotFiles.Source loaded = SnapshotFiles.Source.NONE;
+        if (SnapshotFiles.hasSnapshot(snapshotFile)) {
+            try {
+                loaded = storage.loadSnapshot(snapshotFile, Series.class, seriesList, notifier);
+                System.out.println(" Dados de séries carregados de " + snapshotFile);
+            } catch (IOException e) {
+                System.err.println(" Erro ao carregar dados de séries: " + e.getMessage());
+                e.printStackTrace(); // Começa vazio se houver erro
+            }
+        } else {
+            if (!snapshotFile.exists()) System.out.println("Arquivo " + snapshotFile + " não encontrado. Será criado ao salvar.");
+            else System.out.println("Arquivo " + snapshotFile + " vazio ou é um diretório. Iniciando com lista vazia.");
+        }
+        // Reaplica as alterações registradas depois do snapshot carregado
+        journal.replay(seriesList, loaded, notifier);
+    }
 }
\ No newline at end of file
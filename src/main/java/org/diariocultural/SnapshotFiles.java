@@ -0,0 +1,172 @@
+package org.diariocultural;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Gravação e leitura seguras dos arquivos de snapshot do catálogo.
+ * <p>
+ * Um snapshot nunca é truncado no lugar: o conteúdo é gravado em um arquivo temporário
+ * no mesmo diretório, forçado para o disco com {@link FileChannel#force(boolean)} e então
+ * renomeado atomicamente sobre o arquivo antigo. Uma queda de energia no meio da gravação
+ * deixa intacto o snapshot anterior.
+ * <p>
+ * Antes da troca, a versão atual é preservada como geração anterior (ex: {@code books.json.bak}),
+ * usada na inicialização caso o snapshot principal esteja ilegível. O {@link MediaJournal} mantém
+ * os segmentos gravados depois da geração anterior e os reaplica em seguida, então a recuperação
+ * não perde as alterações feitas entre as duas gerações.
+ */
+public final class SnapshotFiles {
+
+    /** Sufixo do arquivo que guarda a geração anterior do snapshot. */
+    public static final String PREVIOUS_SUFFIX = ".bak";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Escreve o conteúdo do snapshot no stream recebido. */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Lê um snapshot a partir de um arquivo, entregando os registros conforme são decodificados. */
+    @FunctionalInterface
+    public interface SnapshotReader {
+        void read(File file) throws IOException;
+    }
+
+    /** Versão do snapshot efetivamente carregada por {@link #readWithFallback}. */
+    public enum Source {
+        /** Nenhum snapshot foi carregado. */
+        NONE,
+        /** Snapshot principal. */
+        CURRENT,
+        /** Geração anterior ({@code .bak}), porque o principal estava ilegível. */
+        PREVIOUS
+    }
+
+    private SnapshotFiles() {}
+
+    /** @return arquivo da geração anterior de um snapshot. */
+    public static File previousGeneration(File file) {
+        return new File(file.getPath() + PREVIOUS_SUFFIX);
+    }
+
+    /**
+     * Grava um snapshot de forma atômica: temporário + fsync + rename.
+     *
+     * @param target arquivo de destino (ex: data/books.json).
+     * @param content função que escreve o conteúdo completo.
+     * @throws IOException se a gravação falhar; nesse caso o arquivo de destino não é alterado.
+     */
+    public static void writeAtomically(File target, ContentWriter content) throws IOException {
+        writeAtomically(target, content, true);
+    }
+
+    /**
+     * Grava um arquivo de forma atômica, como {@link #writeAtomically(File, ContentWriter)}.
+     *
+     * @param keepPrevious se {@code true}, a versão atual é preservada em {@code <arquivo>.bak};
+     *                     arquivos auxiliares (ex: o registro de geração do journal) não precisam dela.
+     */
+    public static void writeAtomically(File target, ContentWriter content, boolean keepPrevious) throws IOException {
+        Path targetPath = target.toPath().toAbsolutePath();
+        Path directory = targetPath.getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(target.getName() + TEMP_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            // O ContentWriter (ex: Jackson) pode fechar o stream; o canal só é fechado após o force
+            content.writeTo(new FilterOutputStream(out) {
+                @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); }
+                @Override public void close() throws IOException { out.flush(); }
+            });
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (keepPrevious && Files.exists(targetPath)) {
+            keepPreviousGeneration(targetPath, directory.resolve(target.getName() + PREVIOUS_SUFFIX));
+        }
+        Files.move(temp, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(directory);
+    }
+
+    /**
+     * Lê o snapshot e, se ele estiver ilegível (ex: truncado por uma gravação antiga
+     * interrompida), recorre à geração anterior.
+     * <p>
+     * Como os registros são entregues durante a leitura, uma falha no meio do arquivo deixa
+     * uma carga parcial: {@code discardPartial} é chamado para desfazê-la antes de ler a
+     * geração anterior, e de novo se esta também falhar.
+     *
+     * @param file snapshot principal.
+     * @param reader função de leitura.
+     * @param discardPartial desfaz o que já foi entregue por uma leitura que falhou.
+     * @return versão que foi carregada ({@link Source#CURRENT} ou {@link Source#PREVIOUS}).
+     * @throws IOException se nenhuma das duas versões puder ser lida.
+     */
+    public static Source readWithFallback(File file, SnapshotReader reader, Runnable discardPartial)
+            throws IOException {
+        try {
+            reader.read(file);
+            return Source.CURRENT;
+        } catch (IOException e) {
+            discardPartial.run();
+            File previous = previousGeneration(file);
+            if (!previous.isFile() || previous.length() == 0) {
+                throw e;
+            }
+            System.err.println(" Snapshot " + file + " ilegível (" + e.getMessage()
+                    + "). Recuperando a geração anterior " + previous + " (o journal reaplica as alterações seguintes).");
+            try {
+                reader.read(previous);
+                return Source.PREVIOUS;
+            } catch (IOException previousError) {
+                discardPartial.run();
+                previousError.addSuppressed(e);
+                throw previousError;
+            }
+        }
+    }
+
+    /** @return {@code true} se existe um snapshot (principal ou anterior) para carregar. */
+    public static boolean hasSnapshot(File file) {
+        return (file.isFile() && file.length() > 0) || previousGeneration(file).isFile();
+    }
+
+    /**
+     * Preserva a versão atual como geração anterior sem deixar o destino ausente:
+     * cria um hard link (ou, se não suportado, uma cópia) em vez de renomear.
+     */
+    private static void keepPreviousGeneration(Path current, Path previous) throws IOException {
+        Files.deleteIfExists(previous);
+        try {
+            Files.createLink(previous, current);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(current, previous, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Garante que o rename em si seja durável. Nem todo sistema permite abrir diretórios. */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Ignorado: o rename já foi feito, apenas sem garantia extra de durabilidade
+        }
+    }
+}
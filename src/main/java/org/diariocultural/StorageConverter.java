@@ -0,0 +1,69 @@
+package org.diariocultural;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Conversor único dos snapshots do catálogo entre motores de armazenamento.
+ * <p>
+ * Uso: {@code java -cp Diario_cultural.jar org.diariocultural.StorageConverter json binary [diretório]}
+ * <p>
+ * Converte books, movies e series do formato de origem para o de destino, no mesmo diretório
+ * (por padrão, "data"). Os segmentos do journal não dependem do formato do snapshot e continuam
+ * válidos após a conversão. Para usar o novo formato, inicie a aplicação com
+ * {@code -Ddiariocultural.storage=binary} (ou {@code json}).
+ */
+public final class StorageConverter {
+
+    private StorageConverter() {}
+
+    /**
+     * Converte um snapshot de um formato para outro.
+     *
+     * @return quantidade de registros convertidos.
+     * @throws IOException se a leitura ou a gravação falhar (o destino não é alterado).
+     */
+    public static <T> int convert(File source, StorageEngine from, File target, StorageEngine to, Class<T> type)
+            throws IOException {
+        List<T> items = from.loadSnapshot(source, type);
+        to.saveSnapshot(target, items, type);
+        return items.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: StorageConverter <origem: json|binary> <destino: json|binary> [diretório]");
+            System.exit(2);
+        }
+        StorageEngine from = StorageEngine.forName(args[0]);
+        StorageEngine to = StorageEngine.forName(args[1]);
+        String directory = args.length > 2 ? args[2] : "data";
+
+        boolean success = convertCatalog(directory, "books", Book.class, from, to)
+                & convertCatalog(directory, "movies", Movie.class, from, to)
+                & convertCatalog(directory, "series", Series.class, from, to);
+        System.exit(success ? 0 : 1);
+    }
+
+    private static <T> boolean convertCatalog(String directory, String baseName, Class<T> type,
+                                              StorageEngine from, StorageEngine to) {
+        File source = from.snapshotFile(directory, baseName);
+        File target = to.snapshotFile(directory, baseName);
+        if (!SnapshotFiles.hasSnapshot(source)) {
+            System.out.println("Arquivo " + source + " não encontrado. Nada a converter.");
+            return true;
+        }
+        try {
+            long start = System.nanoTime();
+            int count = convert(source, from, target, to, type);
+            System.out.printf("%s -> %s: %d registros (%d -> %d bytes) em %d ms%n", source, target, count,
+                    source.length(), target.length(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erro ao converter " + source + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
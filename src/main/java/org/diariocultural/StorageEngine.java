@@ -0,0 +1,151 @@
+package org.diariocultural;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Formato de armazenamento dos snapshots do catálogo.
+ * <p>
+ * Os controladores não conhecem o formato dos arquivos: eles pedem ao motor de armazenamento
+ * para gravar ou ler a lista de registros. A gravação é sempre atômica e a leitura recorre
+ * à geração anterior em caso de arquivo corrompido (ver {@link SnapshotFiles}).
+ * <p>
+ * Implementações disponíveis: {@link JsonStorageEngine} (padrão, legível) e
+ * {@link BinaryStorageEngine} (compacto). O motor usado pela aplicação é escolhido pela
+ * propriedade de sistema {@value #ENGINE_PROPERTY} ("json" ou "binary").
+ */
+public interface StorageEngine {
+
+    /** Propriedade de sistema que escolhe o motor padrão. */
+    String ENGINE_PROPERTY = "diariocultural.storage";
+
+    /** @return extensão dos arquivos gravados por este motor (ex: "json"). */
+    String fileExtension();
+
+    /**
+     * Escreve todos os registros no stream. O stream não é fechado.
+     */
+    <T> void write(OutputStream out, List<T> items, Class<T> type) throws IOException;
+
+    /**
+     * Lê os registros do stream, entregando cada um ao {@code sink} assim que é decodificado.
+     *
+     * @return quantidade de registros lidos.
+     */
+    <T> int read(InputStream in, Class<T> type, Consumer<? super T> sink) throws IOException;
+
+    /**
+     * @param directory diretório de dados.
+     * @param baseName nome do catálogo (ex: "books").
+     * @return arquivo de snapshot deste motor para o catálogo.
+     */
+    default File snapshotFile(String directory, String baseName) {
+        return new File(directory, baseName + "." + fileExtension());
+    }
+
+    /**
+     * Grava o snapshot de forma atômica (temporário + fsync + rename).
+     */
+    default <T> void saveSnapshot(File file, List<T> items, Class<T> type) throws IOException {
+        SnapshotFiles.writeAtomically(file, out -> write(out, items, type));
+    }
+
+    /**
+     * Serializa os registros em memória, no formato do snapshot. Usado para que os objetos
+     * sejam lidos na thread que os altera e só os bytes sigam para a gravação em segundo plano.
+     *
+     * @return conteúdo completo do snapshot.
+     */
+    default <T> byte[] encode(List<T> items, Class<T> type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, items, type);
+        return out.toByteArray();
+    }
+
+    /**
+     * Grava de forma atômica um snapshot já serializado por {@link #encode(List, Class)}.
+     */
+    default void saveSnapshot(File file, byte[] content) throws IOException {
+        SnapshotFiles.writeAtomically(file, out -> out.write(content));
+    }
+
+    /**
+     * Lê o snapshot, recorrendo à geração anterior se o arquivo principal estiver ilegível.
+     * Cada registro é entregue ao {@code sink} assim que é decodificado, sem montar uma lista
+     * intermediária.
+     *
+     * @param sink recebe os registros, na ordem do arquivo.
+     * @param discardPartial desfaz os registros já entregues quando uma leitura falha no meio
+     *                       (chamado antes de recorrer à geração anterior).
+     * @return versão do snapshot que foi carregada.
+     */
+    default <T> SnapshotFiles.Source loadSnapshot(File file, Class<T> type, Consumer<? super T> sink,
+                                                  Runnable discardPartial) throws IOException {
+        return SnapshotFiles.readWithFallback(file, source -> {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+                read(in, type, sink);
+            }
+        }, discardPartial);
+    }
+
+    /**
+     * Carrega o snapshot direto na coleção indexada, avisando o ouvinte a cada registro lido
+     * (ex: para indexar o acervo enquanto ele ainda carrega). Se a leitura falhar no meio, os
+     * registros já entregues são removidos, com aviso ao ouvinte, antes de recorrer à geração
+     * anterior.
+     *
+     * @param items coleção vazia que recebe os registros.
+     * @param listener avisado de cada registro adicionado ou descartado.
+     * @return versão do snapshot que foi carregada.
+     */
+    default <T> SnapshotFiles.Source loadSnapshot(File file, Class<T> type, IdIndex<T> items,
+                                                  CatalogListener<? super T> listener) throws IOException {
+        return loadSnapshot(file, type, item -> {
+            if (items.put(item) == null) {
+                listener.added(item);
+            } else {
+                listener.updated(item);
+            }
+        }, () -> {
+            for (T item : items.snapshot()) listener.removed(item);
+            items.clear();
+        });
+    }
+
+    /**
+     * Lê o snapshot inteiro para uma lista (ex: para convertê-lo a outro formato).
+     *
+     * @return registros lidos, na ordem do arquivo.
+     */
+    default <T> List<T> loadSnapshot(File file, Class<T> type) throws IOException {
+        List<T> loaded = new ArrayList<>();
+        loadSnapshot(file, type, loaded::add, loaded::clear);
+        return loaded;
+    }
+
+    /** @return motor escolhido pela propriedade {@value #ENGINE_PROPERTY} (JSON por padrão). */
+    static StorageEngine getDefault() {
+        return forName(System.getProperty(ENGINE_PROPERTY, "json"));
+    }
+
+    /**
+     * @param name "json" ou "binary".
+     * @return motor correspondente.
+     * @throws IllegalArgumentException se o nome não for reconhecido.
+     */
+    static StorageEngine forName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "json" -> new JsonStorageEngine();
+            case "binary", "bin", "smile" -> new BinaryStorageEngine();
+            default -> throw new IllegalArgumentException("Motor de armazenamento desconhecido: " + name);
+        };
+    }
+}
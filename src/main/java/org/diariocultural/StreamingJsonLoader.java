@@ -0,0 +1,63 @@
+package org.diariocultural;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Leitor incremental dos arquivos de catálogo (um array JSON de registros).
+ * <p>
+ * Em vez de montar a lista inteira de uma vez com {@code readValue(file, TypeReference)},
+ * percorre o array com um {@link JsonParser} e decodifica um elemento por vez, entregando
+ * cada {@code Book}/{@code Movie}/{@code Series} ao consumidor assim que ele é lido.
+ * O pico de memória fica limitado a um registro além do que o consumidor guardar.
+ */
+public final class StreamingJsonLoader {
+
+    private StreamingJsonLoader() {}
+
+    /**
+     * Lê o array JSON do stream, entregando cada elemento ao {@code sink}.
+     * Se o conteúdo estiver truncado, os elementos anteriores já terão sido entregues
+     * quando a exceção for lançada. O stream não é fechado.
+     *
+     * @param in stream com um array JSON de registros.
+     * @param type classe dos registros.
+     * @param mapper ObjectMapper configurado para o tipo.
+     * @param sink recebe cada registro decodificado, na ordem do arquivo.
+     * @return quantidade de registros lidos.
+     * @throws IOException se o conteúdo não puder ser lido ou não for um array JSON válido.
+     */
+    public static <T> int load(InputStream in, Class<T> type, ObjectMapper mapper, Consumer<? super T> sink) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return load(parser, "stream", type, mapper, sink);
+        }
+    }
+
+    private static <T> int load(JsonParser parser, String source, Class<T> type, ObjectMapper mapper,
+                                Consumer<? super T> sink) throws IOException {
+        ObjectReader reader = mapper.readerFor(type);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Esperado um array JSON em " + source);
+        }
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Fim inesperado de " + source + " após " + count + " registros");
+            }
+            if (token == JsonToken.VALUE_NULL) continue;
+            T item = reader.readValue(parser);
+            sink.accept(item);
+            count++;
+        }
+        return count;
+    }
+}
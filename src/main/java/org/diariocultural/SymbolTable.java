@@ -0,0 +1,120 @@
+package org.diariocultural;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela de símbolos compartilhada pelo acervo: cada texto repetido em listas de gêneros,
+ * elencos e plataformas ("Drama", "Netflix", atores recorrentes) é guardado uma única vez
+ * e as mídias guardam apenas o seu código ({@code int}).
+ * <p>
+ * A conversão acontece na fronteira do modelo: construtores e setters recebem
+ * {@code List<String>} (inclusive os usados pelo Jackson) e os getters devolvem listas
+ * somente leitura que traduzem os códigos na leitura, sem copiar textos.
+ * <p>
+ * Os códigos nunca são reaproveitados. Pode ser usada por várias threads ao mesmo tempo
+ * (os catálogos são carregados em paralelo).
+ */
+public final class SymbolTable {
+
+    private static final SymbolTable SHARED = new SymbolTable();
+    private static final int[] NO_IDS = new int[0];
+    /** Código guardado no lugar de um elemento {@code null}. */
+    private static final int NULL_ID = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[256];
+    private int count; // Protegido por this
+
+    private SymbolTable() {}
+
+    /** @return tabela usada por todas as mídias. */
+    public static SymbolTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param name texto a codificar.
+     * @return código do texto, registrando-o se ainda não existir.
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    private synchronized int register(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) return existing;
+        String[] current = names;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[count] = name;
+        names = current; // Publica o texto antes do código
+        ids.put(name, count);
+        return count++;
+    }
+
+    /** @return texto de um código devolvido por {@link #idOf(String)}. */
+    public String nameOf(int id) {
+        return id == NULL_ID ? null : names[id];
+    }
+
+    /** @return quantidade de textos distintos registrados. */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Codifica uma lista de textos.
+     *
+     * @param values textos (pode ser {@code null}).
+     * @return códigos na mesma ordem, ou {@code null} se a lista for {@code null}.
+     */
+    public int[] encode(List<String> values) {
+        if (values == null) return null;
+        int[] encoded = new int[values.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            String value = values.get(i);
+            encoded[i] = value == null ? NULL_ID : idOf(value);
+        }
+        return encoded;
+    }
+
+    /** Como {@link #encode(List)}, mas trata uma lista {@code null} como vazia. */
+    public int[] encodeOrEmpty(List<String> values) {
+        return values == null || values.isEmpty() ? NO_IDS : encode(values);
+    }
+
+    /**
+     * Visão somente leitura de uma lista codificada. O array não deve ser alterado depois.
+     *
+     * @param ids códigos devolvidos por {@link #encode(List)} (pode ser {@code null}).
+     * @return os textos correspondentes, ou {@code null} se {@code ids} for {@code null}.
+     */
+    public List<String> decode(int[] ids) {
+        return ids == null ? null : new SymbolList(ids);
+    }
+
+    private final class SymbolList extends AbstractList<String> implements RandomAccess {
+        private final int[] ids;
+
+        SymbolList(int[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public String get(int index) {
+            return nameOf(ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
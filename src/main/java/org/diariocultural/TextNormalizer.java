@@ -0,0 +1,39 @@
+package org.diariocultural;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalização de textos para busca: remove acentos e outros diacríticos e converte
+ * para minúsculas, de modo que "acao" encontre "Ação" e "dostoievski" encontre "Dostoiévski".
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {}
+
+    /**
+     * @param text texto original (pode ser {@code null}).
+     * @return texto sem diacríticos e em minúsculas; a própria string se ela já estiver
+     *         normalizada (caso comum, sem alocação); "" para {@code null}.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) break;
+            i++;
+        }
+        if (i == text.length()) return text;
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int j = 0; j < decomposed.length(); j++) {
+            char c = decomposed.charAt(j);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -77,8 +77,8 @@ public class BookFormController implements Initializable {
             readDatePicker.setValue(null);
         }
 
-        if (book.getReviewInfo() != null && !book.getReviewInfo().getReviews().isEmpty()) {
-            Review lastReview = book.getReviewInfo().getReviews().get(book.getReviewInfo().getReviews().size() - 1);
+        if (book.getReviewInfo() != null && book.getReviewInfo().getReviewCount() > 0) {
+            Review lastReview = book.getReviewInfo().getLastReview();
             ratingField.setText(String.valueOf(lastReview.rating()));
             reviewCommentArea.setText(lastReview.comment());
         }
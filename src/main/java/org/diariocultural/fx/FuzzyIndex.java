@@ -0,0 +1,209 @@
+package org.diariocultural.fx;
+
+import java.util.*;
+
+/**
+ * Índice para a busca aproximada (tolerante a erros de digitação) do acervo.
+ * <p>
+ * Mantém o vocabulário de palavras das chaves de busca das mídias, cada palavra com a
+ * lista dos ordinais que a contêm, e um índice de trigramas sobre esse vocabulário.
+ * Para cada palavra da consulta, os trigramas selecionam as palavras candidatas; a distância
+ * de edição (Levenshtein, limitada) só é calculada para as candidatas que compartilham
+ * trigramas suficientes para estarem dentro do limite — nunca contra o acervo inteiro.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class FuzzyIndex {
+
+    /** Mídia encontrada e sua similaridade com a consulta (1.0 = todas as palavras exatas). */
+    record Match(int ordinal, double score) {}
+
+    private final Map<String, PostingList> ordinalsByTerm = new HashMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    private String[][] termsByOrdinal = new String[64][];
+
+    /**
+     * Indexa (ou reindexa) as palavras da chave de busca de uma mídia.
+     */
+    void put(int ordinal, String searchKey) {
+        remove(ordinal);
+        String[] terms = new LinkedHashSet<>(TextIndex.tokensOf(searchKey)).toArray(new String[0]);
+        if (ordinal >= termsByOrdinal.length) {
+            termsByOrdinal = Arrays.copyOf(termsByOrdinal, Math.max(termsByOrdinal.length * 2, ordinal + 1));
+        }
+        termsByOrdinal[ordinal] = terms;
+        for (String term : terms) {
+            PostingList ordinals = ordinalsByTerm.get(term);
+            if (ordinals == null) {
+                ordinals = new PostingList();
+                ordinalsByTerm.put(term, ordinals);
+                for (String trigram : trigramsOf(term)) {
+                    termsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+                }
+            }
+            ordinals.add(ordinal);
+        }
+    }
+
+    /** Remove a mídia do índice, se estiver indexada. */
+    void remove(int ordinal) {
+        if (ordinal >= termsByOrdinal.length || termsByOrdinal[ordinal] == null) return;
+        for (String term : termsByOrdinal[ordinal]) {
+            PostingList ordinals = ordinalsByTerm.get(term);
+            if (ordinals == null || !ordinals.remove(ordinal) || ordinals.size > 0) continue;
+            // Última mídia com esta palavra: sai também do vocabulário
+            ordinalsByTerm.remove(term);
+            for (String trigram : trigramsOf(term)) {
+                Set<String> terms = termsByTrigram.get(trigram);
+                if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                    termsByTrigram.remove(trigram);
+                }
+            }
+        }
+        termsByOrdinal[ordinal] = null;
+    }
+
+    /**
+     * Busca aproximada: cada palavra da consulta precisa corresponder, dentro da distância
+     * de edição tolerada para o seu tamanho, a alguma palavra da mídia.
+     *
+     * @param query consulta já normalizada.
+     * @return mídias encontradas, da mais para a menos parecida (empates pela ordem de cadastro).
+     */
+    List<Match> search(String query) {
+        Map<Integer, Double> scores = null;
+        List<String> words = TextIndex.tokensOf(query);
+        for (String word : words) {
+            Map<Integer, Double> wordScores = scoresFor(word);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                Map<Integer, Double> combined = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    Double score = wordScores.get(entry.getKey());
+                    if (score != null) combined.put(entry.getKey(), entry.getValue() + score);
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) return List.of();
+        }
+        if (scores == null) return List.of();
+
+        List<Match> matches = new ArrayList<>(scores.size());
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            matches.add(new Match(entry.getKey(), entry.getValue() / words.size()));
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparingInt(Match::ordinal));
+        return matches;
+    }
+
+    /**
+     * Similaridade de uma única mídia com a consulta, calculada só sobre as palavras dela.
+     *
+     * @param words palavras da consulta normalizada (ver {@link TextIndex#tokensOf(String)}).
+     * @return o mesmo score de {@link #search(String)}, ou -1 se alguma palavra não corresponde.
+     */
+    double score(int ordinal, List<String> words) {
+        if (words.isEmpty() || ordinal >= termsByOrdinal.length || termsByOrdinal[ordinal] == null) return -1;
+        double total = 0;
+        for (String word : words) {
+            int maxDistance = maxDistanceFor(word.length());
+            double best = -1;
+            for (String term : termsByOrdinal[ordinal]) {
+                int distance = boundedLevenshtein(word, term, maxDistance);
+                if (distance <= maxDistance) {
+                    best = Math.max(best, 1.0 - (double) distance / Math.max(word.length(), term.length()));
+                }
+            }
+            if (best < 0) return -1;
+            total += best;
+        }
+        return total / words.size();
+    }
+
+    /** @return para cada ordinal, a maior similaridade entre a palavra e as palavras da mídia. */
+    private Map<Integer, Double> scoresFor(String word) {
+        int maxDistance = maxDistanceFor(word.length());
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : candidateTerms(word, maxDistance)) {
+            int distance = boundedLevenshtein(word, term, maxDistance);
+            if (distance > maxDistance) continue;
+            double similarity = 1.0 - (double) distance / Math.max(word.length(), term.length());
+            PostingList ordinals = ordinalsByTerm.get(term);
+            for (int i = 0; i < ordinals.size; i++) {
+                scores.merge(ordinals.ordinals[i], similarity, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Seleciona as palavras do vocabulário que podem estar a até {@code maxDistance} edições:
+     * cada edição altera no máximo 3 trigramas, então a candidata precisa compartilhar pelo
+     * menos {@code trigramas(palavra) - 3 * maxDistance} deles e ter tamanho compatível.
+     */
+    private Collection<String> candidateTerms(String word, int maxDistance) {
+        if (maxDistance == 0) {
+            return ordinalsByTerm.containsKey(word) ? List.of(word) : List.of();
+        }
+        List<String> trigrams = trigramsOf(word);
+        int minShared = Math.max(1, trigrams.size() - 3 * maxDistance);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            Set<String> terms = termsByTrigram.get(trigram);
+            if (terms == null) continue;
+            for (String term : terms) {
+                if (Math.abs(term.length() - word.length()) <= maxDistance) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= minShared) candidates.add(entry.getKey());
+        }
+        return candidates;
+    }
+
+    /** Erros tolerados: nenhum em palavras curtas, 1 até 6 letras, 2 a partir daí. */
+    private static int maxDistanceFor(int length) {
+        if (length <= 3) return 0;
+        return length <= 6 ? 1 : 2;
+    }
+
+    /** Trigramas da palavra com bordas marcadas (ex: "sol" → "  s", " so", "sol", "ol "). */
+    private static List<String> trigramsOf(String term) {
+        String padded = "  " + term + " ";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Distância de Levenshtein entre {@code a} e {@code b}, interrompida assim que
+     * ultrapassa {@code limit}.
+     * @return a distância, ou {@code limit + 1} se for maior que o limite.
+     */
+    static int boundedLevenshtein(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) return limit + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) return limit + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+}
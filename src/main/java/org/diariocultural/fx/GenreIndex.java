@@ -0,0 +1,150 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Índice de gêneros do acervo: um dicionário com os gêneros distintos (normalizados) de
+ * livros, filmes e séries, cada um associado a um bitmap dos ordinais das mídias que o têm.
+ * <p>
+ * Um filtro de gênero vira operações entre bitmaps, sem tocar nas mídias:
+ * <ul>
+ *   <li>cada termo corresponde à união dos gêneros do dicionário que o contêm
+ *       (ex: "fic" casa "Ficção" e "Ficção Científica");</li>
+ *   <li>termos separados por {@code |} são alternativas (OR);</li>
+ *   <li>grupos separados por vírgula precisam ser todos atendidos (AND).</li>
+ * </ul>
+ * Ex: {@code "drama, comédia | romance"} = drama E (comédia OU romance).
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class GenreIndex {
+
+    private final Map<String, BitSet> bitmapsByGenre = new HashMap<>();
+    private String[][] genresByOrdinal = new String[64][];
+
+    /**
+     * Indexa (ou reindexa) os gêneros de uma mídia.
+     * @param genreKeys gêneros já normalizados.
+     */
+    void put(int ordinal, String[] genreKeys) {
+        remove(ordinal);
+        if (ordinal >= genresByOrdinal.length) {
+            genresByOrdinal = Arrays.copyOf(genresByOrdinal, Math.max(genresByOrdinal.length * 2, ordinal + 1));
+        }
+        genresByOrdinal[ordinal] = genreKeys;
+        for (String genre : genreKeys) {
+            bitmapsByGenre.computeIfAbsent(genre, g -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /** Remove a mídia do índice, se estiver indexada. */
+    void remove(int ordinal) {
+        if (ordinal >= genresByOrdinal.length || genresByOrdinal[ordinal] == null) return;
+        for (String genre : genresByOrdinal[ordinal]) {
+            BitSet bitmap = bitmapsByGenre.get(genre);
+            if (bitmap == null) continue;
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmapsByGenre.remove(genre);
+            }
+        }
+        genresByOrdinal[ordinal] = null;
+    }
+
+    /**
+     * Interpreta uma expressão de filtro de gênero.
+     *
+     * @param expression termos separados por vírgula (AND) e {@code |} (OR).
+     * @return grupos (todos obrigatórios) de termos normalizados alternativos;
+     *         lista vazia se a expressão não tiver nenhum termo.
+     */
+    static List<List<String>> parse(String expression) {
+        List<List<String>> groups = new ArrayList<>();
+        for (String group : expression.split(",")) {
+            List<String> alternatives = new ArrayList<>();
+            for (String term : group.split("\\|")) {
+                String key = TextNormalizer.normalize(term.trim());
+                if (!key.isEmpty()) alternatives.add(key);
+            }
+            if (!alternatives.isEmpty()) groups.add(alternatives);
+        }
+        return groups;
+    }
+
+    /**
+     * Avalia uma expressão de filtro de gênero.
+     *
+     * @param groups expressão já interpretada por {@link #parse(String)}.
+     * @return bitmap dos ordinais que atendem à expressão (novo, pode ser alterado),
+     *         ou {@code null} se a expressão não tiver nenhum termo.
+     */
+    BitSet filter(List<List<String>> groups) {
+        BitSet result = null;
+        for (List<String> group : groups) {
+            BitSet alternatives = new BitSet();
+            for (String key : group) {
+                alternatives.or(matching(key));
+            }
+            if (result == null) {
+                result = alternatives;
+            } else {
+                result.and(alternatives);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimativa do tamanho do resultado, sem montar bitmaps: para cada grupo, a soma das
+     * cardinalidades dos gêneros que casam com os seus termos; vale o menor grupo.
+     */
+    int estimate(List<List<String>> groups) {
+        int estimate = Integer.MAX_VALUE;
+        for (List<String> group : groups) {
+            int groupSize = 0;
+            for (Map.Entry<String, BitSet> entry : bitmapsByGenre.entrySet()) {
+                if (matchesAny(entry.getKey(), group)) {
+                    groupSize += entry.getValue().cardinality();
+                }
+            }
+            estimate = Math.min(estimate, groupSize);
+        }
+        return estimate;
+    }
+
+    /** @return {@code true} se os gêneros do ordinal atendem à expressão interpretada. */
+    boolean matches(int ordinal, List<List<String>> groups) {
+        if (ordinal >= genresByOrdinal.length || genresByOrdinal[ordinal] == null) return false;
+        for (List<String> group : groups) {
+            boolean groupMatched = false;
+            for (String genre : genresByOrdinal[ordinal]) {
+                if (matchesAny(genre, group)) {
+                    groupMatched = true;
+                    break;
+                }
+            }
+            if (!groupMatched) return false;
+        }
+        return true;
+    }
+
+    private static boolean matchesAny(String genre, List<String> keys) {
+        for (String key : keys) {
+            if (genre.contains(key)) return true;
+        }
+        return false;
+    }
+
+    /** @return união dos bitmaps dos gêneros que contêm o termo normalizado. */
+    private BitSet matching(String key) {
+        BitSet union = new BitSet();
+        for (Map.Entry<String, BitSet> entry : bitmapsByGenre.entrySet()) {
+            if (entry.getKey().contains(key)) {
+                union.or(entry.getValue());
+            }
+        }
+        return union;
+    }
+}
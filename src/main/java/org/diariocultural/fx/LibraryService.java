@@ -2,105 +2,485 @@ package org.diariocultural.fx;
 
 import org.diariocultural.*;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Serviço responsável por unificar as operações de busca e listagem
  * entre diferentes tipos de mídia (Livros, Filmes, etc.).
+ * <p>
+ * Mantém índices em memória sobre o acervo (ex: o {@link TextIndex} da busca por texto),
+ * atualizados incrementalmente a partir das notificações dos controladores.
  */
 public class LibraryService {
 
-    private final BookController bookController;
-    private final MovieController movieController;
-    private final SeriesController seriesController;
+    private final CompletableFuture<BookController> bookController;
+    private final CompletableFuture<MovieController> movieController;
+    private final CompletableFuture<SeriesController> seriesController;
+    /** Completado depois que os três catálogos foram carregados e indexados. */
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
 
-    // Atualize o construtor
-    public LibraryService(BookController bookController, MovieController movieController, SeriesController seriesController) {
+    // Índices do acervo, protegidos pelo indexLock (escritas vêm dos controladores, leituras das buscas)
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final MediaRegistry registry = new MediaRegistry();
+    private final TextIndex textIndex = new TextIndex();
+    private final SuggestionIndex suggestionIndex = new SuggestionIndex();
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex();
+    private final GenreIndex genreIndex = new GenreIndex();
+    private final YearIndex yearIndex = new YearIndex();
+    private final SortedViews sortedViews = new SortedViews();
+
+    /** Consultas recentes guardadas por {@link #query(MediaQuery, int)}. */
+    private static final int QUERY_CACHE_CAPACITY = 32;
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_CAPACITY);
+    /** Incrementada a cada alteração do catálogo (protegida pelo indexLock). */
+    private long catalogEpoch;
+    private final QueryPlanner planner = new QueryPlanner(registry, textIndex, fuzzyIndex, genreIndex, yearIndex);
+
+    /**
+     * Último resultado filtrado (antes de ordenar), para refinar a próxima consulta enquanto o usuário
+     * digita. É substituído por inteiro a cada consulta, então pode ser lido sem o lock de escrita.
+     */
+    private volatile LastFilter lastFilter;
+
+    /** @param ordinals resultado de {@code query}, na ordem do catálogo (nunca alterado). */
+    private record LastFilter(MediaQuery query, long epoch, int[] ordinals) {}
+
+    /** Mantém os índices em dia com as alterações (e com a carga) dos três controladores. */
+    private final CatalogListener<Media> indexer = new CatalogListener<>() {
+        @Override public void added(Media item) { index(item); }
+        @Override public void updated(Media item) { index(item); }
+        @Override public void removed(Media item) { unindex(item); }
+    };
+
+    /**
+     * O construtor só guarda os controladores: quem cria o serviço (ver {@link #of} e
+     * {@link #loadAsync()}) registra os ouvintes depois que ele já existe, para que nenhuma
+     * referência ao serviço incompleto saia do construtor.
+     */
+    private LibraryService(CompletableFuture<BookController> bookController,
+                           CompletableFuture<MovieController> movieController,
+                           CompletableFuture<SeriesController> seriesController) {
         this.bookController = bookController;
         this.movieController = movieController;
-        this.seriesController = seriesController; // <-- Adicione esta linha
+        this.seriesController = seriesController;
+    }
+
+    /**
+     * Cria o serviço sobre controladores já carregados e indexa o acervo antes de retornar.
+     */
+    public static LibraryService of(BookController bookController, MovieController movieController,
+                                    SeriesController seriesController) {
+        LibraryService service = new LibraryService(CompletableFuture.completedFuture(bookController),
+                CompletableFuture.completedFuture(movieController),
+                CompletableFuture.completedFuture(seriesController));
+        service.attachIndexes();
+        service.ready.complete(null);
+        return service;
+    }
+
+    /**
+     * Cria o serviço e carrega os três catálogos em paralelo, cada um em uma virtual thread,
+     * sem bloquear quem chamou (ex: a thread do JavaFX na inicialização).
+     * <p>
+     * Os controladores avisam o serviço de cada registro conforme ele é lido do snapshot e do
+     * journal, então os índices são montados durante a própria carga, sem uma lista intermediária
+     * nem uma segunda passada sobre o acervo. As consultas continuam esperando {@link #ready()}.
+     */
+    public static LibraryService loadAsync() {
+        LibraryService service = new LibraryService(new CompletableFuture<>(), new CompletableFuture<>(),
+                new CompletableFuture<>());
+        CatalogListener<Media> indexer = service.indexer;
+        ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            service.bookController.completeAsync(() -> new BookController(indexer), loader);
+            service.movieController.completeAsync(() -> new MovieController(indexer), loader);
+            service.seriesController.completeAsync(() -> new SeriesController(indexer), loader);
+        } finally {
+            loader.shutdown(); // As tarefas já enviadas continuam até o fim
+        }
+        CompletableFuture.allOf(service.bookController, service.movieController, service.seriesController)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        service.ready.completeExceptionally(error);
+                    } else {
+                        service.ready.complete(null);
+                    }
+                });
+        return service;
+    }
+
+    /**
+     * Passa a acompanhar as alterações de controladores já carregados e indexa o acervo deles.
+     * O ouvinte é registrado antes da indexação inicial; como indexar é idempotente,
+     * uma alteração feita nesse meio-tempo não se perde.
+     */
+    private void attachIndexes() {
+        indexLock.writeLock().lock();
+        try {
+            getBookController().addCatalogListener(indexer);
+            getMovieController().addCatalogListener(indexer);
+            getSeriesController().addCatalogListener(indexer);
+            getAllMedia().forEach(this::index);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void index(Media media) {
+        indexLock.writeLock().lock();
+        try {
+            catalogEpoch++;
+            int ordinal = registry.register(media);
+            textIndex.put(ordinal, media.getSearchKey());
+            fuzzyIndex.put(ordinal, media.getSearchKey());
+            genreIndex.put(ordinal, media.getGenreKeys());
+            int endYear = media instanceof Series series ? series.getEndYear() : media.getReleaseYear();
+            yearIndex.put(ordinal, media.getReleaseYear(), endYear);
+            suggestionIndex.put(ordinal, suggestionPhrases(media));
+            // Novas avaliações chegam como "updated": a nota é relida aqui
+            sortedViews.put(ordinal, MediaRegistry.groupOf(media), media.getAverageRating(),
+                    TextNormalizer.normalize(media.getTitle()), media.getReleaseYear());
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Media media) {
+        indexLock.writeLock().lock();
+        try {
+            catalogEpoch++;
+            int ordinal = registry.unregister(media);
+            if (ordinal >= 0) {
+                textIndex.remove(ordinal);
+                fuzzyIndex.remove(ordinal);
+                genreIndex.remove(ordinal);
+                yearIndex.remove(ordinal);
+                suggestionIndex.remove(ordinal);
+                sortedViews.remove(ordinal);
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /** @return frases oferecidas pelo autocompletar: títulos, autor/diretor/criador e elenco. */
+    private static List<String> suggestionPhrases(Media media) {
+        List<String> phrases = new ArrayList<>();
+        phrases.add(media.getTitle());
+        if (media instanceof Book book) {
+            phrases.add(book.getOriginalTitle());
+            phrases.add(book.getAuthor());
+        } else if (media instanceof Movie movie) {
+            phrases.add(movie.getOriginalTitle());
+            phrases.add(movie.getDirector());
+            phrases.addAll(movie.getCast());
+        } else if (media instanceof Series series) {
+            phrases.add(series.getOriginalTitle());
+            phrases.add(series.getCreator());
+            phrases.addAll(series.getCast());
+        }
+        return phrases;
+    }
+
+    /**
+     * Sugestões para o campo de busca a partir do texto digitado.
+     * Retorna uma lista vazia enquanto o acervo ainda estiver carregando.
+     *
+     * @param prefix texto digitado (início de um título, nome ou de uma de suas palavras).
+     * @param limit quantidade máxima de sugestões.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (!isReady() || prefix == null) return List.of();
+        indexLock.readLock().lock();
+        try {
+            return suggestionIndex.suggest(prefix, limit);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca por texto (substring, sem diferenciar acentos nem maiúsculas) em título, título original,
+     * autor/diretor/criador, ISBN e elenco, usando o índice invertido.
+     *
+     * @param textCriteria texto buscado.
+     * @return mídias encontradas, na ordem de {@link #getAllMedia()}.
+     */
+    public List<Media> searchText(String textCriteria) {
+        ready.join();
+        String query = TextNormalizer.normalize(textCriteria.trim());
+        indexLock.readLock().lock();
+        try {
+            int[] ordinals = registry.inCatalogOrder(textIndex.search(query));
+            List<Media> results = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                results.add(registry.get(ordinal));
+            }
+            return results;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca aproximada, tolerante a erros de digitação (ex: "tarentino" encontra "Tarantino"):
+     * cada palavra do texto precisa se parecer com alguma palavra dos mesmos campos da
+     * {@link #searchText(String) busca por texto}.
+     *
+     * @param textCriteria texto buscado.
+     * @return mídias encontradas, da mais para a menos parecida com o texto.
+     */
+    public List<Media> searchFuzzy(String textCriteria) {
+        ready.join();
+        String query = TextNormalizer.normalize(textCriteria.trim());
+        indexLock.readLock().lock();
+        try {
+            List<FuzzyIndex.Match> matches = new ArrayList<>(fuzzyIndex.search(query));
+            // Empates pela ordem do catálogo, e não pela ordem em que os ordinais foram atribuídos
+            matches.sort(Comparator.comparingDouble(FuzzyIndex.Match::score).reversed()
+                    .thenComparing((a, b) -> registry.compareInCatalog(a.ordinal(), b.ordinal())));
+            List<Media> results = new ArrayList<>(matches.size());
+            for (FuzzyIndex.Match match : matches) {
+                results.add(registry.get(match.ordinal()));
+            }
+            return results;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mídias de um ano ou intervalo de anos, pelo índice ordenado de anos.
+     * Séries entram se estiveram no ar em algum ano do intervalo.
+     *
+     * @param fromYear primeiro ano (inclusive); 0 para não limitar.
+     * @param toYear último ano (inclusive); 0 para não limitar.
+     * @return mídias encontradas, na ordem de {@link #getAllMedia()}.
+     */
+    public List<Media> findByYearRange(int fromYear, int toYear) {
+        ready.join();
+        indexLock.readLock().lock();
+        try {
+            BitSet selected = yearIndex.range(lowerYear(fromYear), upperYear(toYear));
+            int[] ordinals = registry.inCatalogOrder(selected.stream().toArray());
+            List<Media> results = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                results.add(registry.get(ordinal));
+            }
+            return results;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private static int lowerYear(int fromYear) {
+        return fromYear > 0 ? fromYear : YearIndex.MIN_YEAR;
+    }
+
+    private static int upperYear(int toYear) {
+        return toYear > 0 ? toYear : YearIndex.MAX_YEAR;
+    }
+
+    /**
+     * @return future que completa quando os três catálogos terminaram de carregar.
+     *         Os callbacks encadeados nele não rodam na thread do JavaFX.
+     */
+    public CompletableFuture<Void> ready() {
+        return ready;
     }
 
-    // Atualize o getAllMedia
+    /** @return {@code true} se os catálogos já foram carregados (as consultas não vão bloquear). */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Retorna o acervo completo: livros, filmes e séries, nessa ordem.
+     * A lista é uma visão somente leitura sobre as listas imutáveis dos três controladores,
+     * sem copiar nenhuma delas; alterações posteriores no catálogo não a afetam.
+     */
     public List<Media> getAllMedia() {
-        return Stream.of(
-                bookController.getAllBooks().stream(),
-                movieController.getAllMovies().stream(),
-                seriesController.getAllSeries().stream() // <-- Adicione esta linha
-        ).flatMap(s -> s).collect(Collectors.toList());
+        return new ConcatenatedList<>(List.of(
+                getBookController().getAllBooks(),
+                getMovieController().getAllMovies(),
+                getSeriesController().getAllSeries()));
+    }
+
+    /** Concatenação somente leitura de listas que não mudam (ex: {@code IdIndex#snapshot()}). */
+    private static final class ConcatenatedList<E> extends AbstractList<E> implements RandomAccess {
+        private final List<? extends List<? extends E>> parts;
+        private final int size;
+
+        ConcatenatedList(List<? extends List<? extends E>> parts) {
+            this.parts = parts;
+            int total = 0;
+            for (List<? extends E> part : parts) total += part.size();
+            this.size = total;
+        }
+
+        @Override
+        public E get(int index) {
+            Objects.checkIndex(index, size);
+            for (List<? extends E> part : parts) {
+                if (index < part.size()) return part.get(index);
+                index -= part.size();
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return parts.stream().<E>flatMap(List::stream).iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 
     /**
      * Retorna uma lista de mídias filtrada e ordenada de acordo com os critérios.
-     * @param genreFilter O gênero para filtrar (pode ser vazio).
-     * @param yearFilter O ano para filtrar (0 se não houver filtro).
-     * @param sortOrder A ordem de classificação ("Melhor Avaliados", "Pior Avaliados").
+     * @param genreFilter O gênero para filtrar (pode ser vazio). Aceita vários gêneros:
+     *                    separados por vírgula (todos) ou por {@code |} (qualquer um).
+     * @param yearFilter O ano de lançamento para filtrar (0 se não houver filtro). Diferente do
+     *                   intervalo de anos de {@link #query(MediaQuery)}, séries que estavam no ar
+     *                   nesse ano mas foram lançadas antes não entram.
+     * @param sortOrder A ordem de classificação (ver {@link MediaQuery#SORT_ORDERS}).
      * @return Uma lista de Media processada.
      */
     public List<Media> getFilteredAndSortedMedia(String textCriteria, String genreFilter, int yearFilter, String sortOrder) {
-        // Começa com a lista completa de todas as mídias.
-        Stream<Media> mediaStream = getAllMedia().stream();
-
-        // 1. Aplica o filtro de busca por texto, se houver
-        if (textCriteria != null && !textCriteria.isBlank()) {
-            String lowerCriteria = textCriteria.toLowerCase().trim();
-            mediaStream = mediaStream.filter(media -> {
-                // Lógica de busca unificada
-                if (media instanceof Book book) {
-                    return book.getTitle().toLowerCase().contains(lowerCriteria) || book.getAuthor().toLowerCase().contains(lowerCriteria);
-                } else if (media instanceof Movie movie) {
-                    return movie.getTitle().toLowerCase().contains(lowerCriteria) || movie.getDirector().toLowerCase().contains(lowerCriteria);
-                } else if (media instanceof Series series) {
-                    return series.getTitle().toLowerCase().contains(lowerCriteria) || series.getCreator().toLowerCase().contains(lowerCriteria);
-                }
-                return false;
-            });
-        }
-
-        // 2. Aplica filtro de Gênero
-        if (genreFilter != null && !genreFilter.isBlank()) {
-            String lowerGenreFilter = genreFilter.toLowerCase().trim();
-            mediaStream = mediaStream.filter(media -> media.getGenre().stream()
-                    .anyMatch(g -> g.toLowerCase().contains(lowerGenreFilter)));
-        }
-
-        // 3. Aplica filtro de Ano
-        if (yearFilter > 0) {
-            mediaStream = mediaStream.filter(media -> media.getReleaseYear() == yearFilter);
-        }
-
-        List<Media> filteredList = mediaStream.collect(Collectors.toList());
-
-        // 4. Aplica a Ordenação
-        if (sortOrder != null && !sortOrder.equals("Padrão")) {
-            Comparator<Media> comparator = Comparator.comparingDouble(Media::getAverageRating);
-            if (sortOrder.equals("Melhor Avaliados")) {
-                comparator = comparator.reversed();
-            } else { // Pior Avaliados
-                comparator = (m1, m2) -> {
-                    double r1 = m1.getAverageRating();
-                    double r2 = m2.getAverageRating();
-                    if (r1 > 0 && r2 == 0) return -1;
-                    if (r1 == 0 && r2 > 0) return 1;
-                    return Double.compare(r1, r2);
-                };
+        List<Media> results = getFilteredAndSortedMedia(textCriteria, false, genreFilter, yearFilter, yearFilter, sortOrder);
+        if (yearFilter <= 0) return results;
+        // O índice devolve as séries em exibição no ano; aqui vale só o ano de lançamento
+        List<Media> released = new ArrayList<>(results.size());
+        for (Media media : results) {
+            if (media.getReleaseYear() == yearFilter) released.add(media);
+        }
+        return released;
+    }
+
+    /**
+     * Variante com busca aproximada opcional e intervalo de anos.
+     * Na ordem "Padrão", o resultado da busca aproximada vem do mais para o menos parecido.
+     *
+     * @param fuzzy {@code true} para usar {@link #searchFuzzy(String)} em vez de {@link #searchText(String)}.
+     * @param fromYear primeiro ano (inclusive); 0 para não limitar.
+     * @param toYear último ano (inclusive); 0 para não limitar. Com os dois em 0 não há filtro de ano.
+     */
+    public List<Media> getFilteredAndSortedMedia(String textCriteria, boolean fuzzy, String genreFilter,
+                                                 int fromYear, int toYear, String sortOrder) {
+        return query(new MediaQuery(textCriteria, fuzzy, genreFilter, fromYear, toYear, sortOrder));
+    }
+
+    /**
+     * Executa uma consulta combinada. O {@link QueryPlanner} começa pelo filtro mais seletivo,
+     * segundo as estatísticas dos índices, e só confere os demais sobre esses candidatos.
+     *
+     * @return mídias encontradas, ordenadas segundo {@link MediaQuery#sortOrder()}.
+     */
+    public List<Media> query(MediaQuery query) {
+        return query(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Variante que retorna apenas os {@code limit} primeiros resultados (ex: "os 50 mais bem avaliados").
+     * As ordenações vêm das visões ordenadas mantidas a cada alteração, sem ordenar o acervo a cada consulta.
+     * Consultas repetidas sem alterações no catálogo entre elas são servidas pelo {@link QueryCache}.
+     *
+     * @param limit quantidade máxima de mídias retornadas.
+     * @return lista somente leitura com as mídias encontradas.
+     * @throws java.util.concurrent.CancellationException se a thread foi interrompida durante a
+     *         consulta (nada é guardado no cache).
+     */
+    public List<Media> query(MediaQuery query, int limit) {
+        ready.join();
+        indexLock.readLock().lock();
+        try {
+            List<Media> results = queryCache.get(query, limit, catalogEpoch);
+            if (results == null) {
+                results = execute(query, limit);
+                queryCache.put(query, limit, catalogEpoch, results);
             }
-            filteredList.sort(comparator);
+            return results;
+        } finally {
+            indexLock.readLock().unlock();
         }
+    }
 
-        return filteredList;
+    /** Executa a consulta nos índices. Deve ser chamado com o indexLock de leitura. */
+    private List<Media> execute(MediaQuery query, int limit) {
+        int[] ordinals = filter(query);
+        QueryPlanner.checkCancelled();
+        if (query.isSorted()) {
+            ordinals = sortedViews.order(ordinals, query.sortOrder(), limit);
+            QueryPlanner.checkCancelled();
+        } else if (ordinals == null) {
+            return limit(getAllMedia(), limit); // Sem nenhum filtro: o acervo completo
+        }
+        int size = Math.min(limit, ordinals.length);
+        List<Media> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(registry.get(ordinals[i]));
+        }
+        return Collections.unmodifiableList(results);
     }
 
-    public SeriesController getSeriesController(){ return seriesController;}
+    /**
+     * Aplica os filtros da consulta. Se ela apenas restringe a anterior (ex: o usuário digitou mais
+     * uma letra ou escolheu mais um gênero) e o catálogo não mudou, filtra só o resultado anterior.
+     *
+     * @return ordinais encontrados, na ordem do catálogo (ou por similaridade, na busca aproximada);
+     *         {@code null} se a consulta não tiver filtros.
+     */
+    private int[] filter(MediaQuery query) {
+        LastFilter last = lastFilter;
+        int[] ordinals;
+        if (last != null && last.epoch() == catalogEpoch && query.narrows(last.query())) {
+            ordinals = planner.refine(last.ordinals(), query);
+        } else {
+            ordinals = planner.execute(query);
+        }
+        if (ordinals != null && !query.fuzzy()) {
+            lastFilter = new LastFilter(query, catalogEpoch, ordinals);
+        }
+        return ordinals;
+    }
+
+    /**
+     * @param limit quantidade de mídias.
+     * @return as mídias com as maiores notas médias, da maior para a menor.
+     */
+    public List<Media> topRated(int limit) {
+        return query(new MediaQuery(null, false, null, 0, 0, MediaQuery.SORT_BEST), limit);
+    }
+
+    private static List<Media> limit(List<Media> mediaList, int limit) {
+        return mediaList.size() > limit ? mediaList.subList(0, limit) : mediaList;
+    }
+
+    // Os getters aguardam o carregamento do catálogo correspondente, se ainda estiver em andamento.
+
+    public SeriesController getSeriesController(){ return seriesController.join();}
 
     public BookController getBookController() {
-        return bookController;
+        return bookController.join();
     }
 
     public MovieController getMovieController() {
-        return movieController;
+        return movieController.join();
     }
 }
\ No newline at end of file
@@ -1,24 +1,35 @@
 package org.diariocultural.fx;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.MouseButton;
+import javafx.util.Duration;
 import org.diariocultural.*;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controlador para a página do Acervo (LibraryView.fxml).
  * Gerencia a exibição, busca, filtro e ordenação da lista unificada de mídias.
+ * <p>
+ * Os filtros são aplicados enquanto o usuário digita, depois de uma pequena pausa, e a consulta
+ * roda fora da thread da interface: só o resultado da consulta mais recente chega à tabela.
  */
 public class LibraryViewController implements Initializable {
 
@@ -36,16 +47,53 @@ public class LibraryViewController implements Initializable {
 
     // --- Componentes de Filtro/Ordenação ---
     @FXML private TextField searchField;
+    @FXML private CheckBox fuzzySearchCheckBox;
     @FXML private TextField genreFilterField;
-    @FXML private TextField yearFilterField;
+    @FXML private TextField yearFromField;
+    @FXML private TextField yearToField;
     @FXML private ComboBox<String> sortComboBox;
 
+    // --- Autocompletar do campo de busca ---
+    private static final int MAX_SUGGESTIONS = 8;
+    private final ContextMenu suggestionsPopup = new ContextMenu();
+    private boolean applyingSuggestion = false;
+
+    // --- Busca em segundo plano ---
+    /** Espera após a última alteração dos filtros antes de consultar. */
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    /**
+     * Uma única thread para as consultas: uma busca nova cancela a anterior, que deixa a fila sem
+     * rodar ou para na próxima etapa do planejador, em vez de várias buscas rodarem juntas.
+     */
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "busca-acervo");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Consulta em andamento (só acessado na thread da interface). */
+    private Task<List<Media>> currentSearch;
+
     /**
      * Injeta a dependência do serviço principal. Chamado pelo MainViewController.
      */
     public void setLibraryService(LibraryService libraryService) {
         this.libraryService = libraryService;
-        refreshMediaTable(this.libraryService.getAllMedia());
+        if (libraryService.isReady()) {
+            refreshMediaTable();
+            return;
+        }
+        // Catálogos ainda carregando: mostra um aviso e preenche a tabela quando estiverem prontos
+        mediaTableView.setPlaceholder(new Label("Carregando acervo..."));
+        libraryService.ready().whenComplete((ignored, error) -> Platform.runLater(() -> {
+            mediaTableView.setPlaceholder(null);
+            if (error != null) {
+                error.printStackTrace();
+                showAlert(Alert.AlertType.ERROR, "Erro", "Não foi possível carregar o acervo.");
+            } else {
+                refreshMediaTable();
+            }
+        }));
     }
 
     /**
@@ -74,35 +122,154 @@ public class LibraryViewController implements Initializable {
         });
 
         // 3. Preenche as opções do ComboBox de ordenação
-        sortComboBox.getItems().addAll("Padrão", "Melhor Avaliados", "Pior Avaliados");
-        sortComboBox.setValue("Padrão");
+        sortComboBox.getItems().addAll(MediaQuery.SORT_ORDERS);
+        sortComboBox.setValue(MediaQuery.SORT_DEFAULT);
+
+        // 4. Sugestões enquanto o usuário digita no campo de busca
+        searchField.textProperty().addListener((obs, oldText, newText) -> showSuggestions(newText));
+        searchField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) suggestionsPopup.hide();
+        });
+
+        // 5. Filtra enquanto o usuário digita, reiniciando a espera a cada alteração
+        searchDelay.setOnFinished(event -> {
+            MediaQuery query = readQuery(false);
+            if (query != null) startSearch(query);
+        });
+        searchField.textProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+        genreFilterField.textProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+        yearFromField.textProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+        yearToField.textProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+        fuzzySearchCheckBox.selectedProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+        sortComboBox.valueProperty().addListener((obs, oldValue, newValue) -> scheduleSearch());
+    }
+
+    private void scheduleSearch() {
+        if (libraryService == null || !libraryService.isReady()) return; // A tabela é preenchida assim que o acervo carregar
+        searchDelay.playFromStart();
+    }
+
+    /**
+     * Executa a consulta na thread de busca, cancelando a anterior se ainda não tiver terminado.
+     * O resultado só é mostrado se nenhuma consulta mais nova tiver começado nesse meio tempo.
+     */
+    private void startSearch(MediaQuery query) {
+        cancelSearch();
+        Task<List<Media>> search = new Task<>() {
+            @Override
+            protected List<Media> call() {
+                return libraryService.query(query);
+            }
+        };
+        search.setOnSucceeded(event -> {
+            if (search == currentSearch) {
+                currentSearch = null;
+                refreshMediaTable(search.getValue());
+            }
+        });
+        search.setOnFailed(event -> {
+            if (search == currentSearch) currentSearch = null;
+            search.getException().printStackTrace();
+        });
+        currentSearch = search;
+        SEARCH_EXECUTOR.execute(search);
+    }
+
+    /** Descarta a busca agendada e a que estiver na fila ou em andamento (interrompendo-a). */
+    private void cancelSearch() {
+        searchDelay.stop();
+        if (currentSearch != null) {
+            currentSearch.cancel();
+            currentSearch = null;
+        }
+    }
+
+    /**
+     * Mostra, abaixo do campo de busca, os títulos e nomes que começam com o texto digitado.
+     */
+    private void showSuggestions(String text) {
+        if (applyingSuggestion || libraryService == null || text == null || text.isBlank() || !searchField.isFocused()) {
+            suggestionsPopup.hide();
+            return;
+        }
+        List<String> suggestions = libraryService.suggest(text, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            suggestionsPopup.hide();
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(suggestions.size());
+        for (String suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion);
+            item.setOnAction(event -> applySuggestion(suggestion));
+            items.add(item);
+        }
+        suggestionsPopup.getItems().setAll(items);
+        if (!suggestionsPopup.isShowing()) {
+            suggestionsPopup.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Preenche o campo com a sugestão escolhida e aplica os filtros.
+     */
+    private void applySuggestion(String suggestion) {
+        applyingSuggestion = true;
+        searchField.setText(suggestion);
+        applyingSuggestion = false;
+        searchField.positionCaret(suggestion.length());
+        suggestionsPopup.hide();
+        onApplyFiltersButtonClick();
     }
 
 
 
     /**
      * Chamado pelo botão "Aplicar Filtros".
-     * Reúne todos os critérios e atualiza a tabela.
+     * Reúne todos os critérios e atualiza a tabela, sem esperar a pausa da digitação.
      */
     @FXML
     private void onApplyFiltersButtonClick() {
+        if (!libraryService.isReady()) return; // A tabela é preenchida assim que o acervo carregar
+        MediaQuery query = readQuery(true);
+        if (query != null) {
+            startSearch(query);
+        }
+    }
+
+    /**
+     * Reúne os critérios dos campos de filtro.
+     *
+     * @param showErrors {@code true} para avisar sobre anos inválidos; durante a digitação eles
+     *                   são apenas ignorados (o usuário ainda pode estar digitando o ano).
+     * @return a consulta, ou {@code null} se algum ano for inválido.
+     */
+    private MediaQuery readQuery(boolean showErrors) {
         String textSearch = searchField.getText(); // Pega o texto de busca
         String genre = genreFilterField.getText();
-        int year = 0;
+        int fromYear = 0;
+        int toYear = 0;
         try {
-            if (!yearFilterField.getText().isBlank()) {
-                year = Integer.parseInt(yearFilterField.getText());
+            if (!yearFromField.getText().isBlank()) {
+                fromYear = Integer.parseInt(yearFromField.getText().trim());
+            }
+            if (!yearToField.getText().isBlank()) {
+                toYear = Integer.parseInt(yearToField.getText().trim());
             }
         } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "Ano Inválido", "Por favor, insira um número válido para o ano.");
-            return;
+            if (showErrors) {
+                showAlert(Alert.AlertType.ERROR, "Ano Inválido", "Por favor, insira um número válido para o ano.");
+            }
+            return null;
+        }
+        if (fromYear > 0 && toYear > 0 && fromYear > toYear) {
+            if (showErrors) {
+                showAlert(Alert.AlertType.ERROR, "Intervalo Inválido", "O ano inicial não pode ser maior que o ano final.");
+            }
+            return null;
         }
 
         String sortOrder = sortComboBox.getValue();
-
-        // Chama o novo método do serviço com todos os parâmetros
-        List<Media> results = libraryService.getFilteredAndSortedMedia(textSearch, genre, year, sortOrder);
-        refreshMediaTable(results);
+        return new MediaQuery(textSearch, fuzzySearchCheckBox.isSelected(), genre, fromYear, toYear, sortOrder);
     }
 
 
@@ -112,10 +279,15 @@ public class LibraryViewController implements Initializable {
     @FXML
     private void onResetButtonClick() {
         searchField.clear();
+        fuzzySearchCheckBox.setSelected(false);
         genreFilterField.clear();
-        yearFilterField.clear();
-        sortComboBox.setValue("Padrão");
-        refreshMediaTable(libraryService.getAllMedia());
+        yearFromField.clear();
+        yearToField.clear();
+        sortComboBox.setValue(MediaQuery.SORT_DEFAULT);
+        cancelSearch(); // Os campos limpos já mostram o acervo completo
+        if (libraryService.isReady()) {
+            refreshMediaTable(libraryService.getAllMedia());
+        }
     }
 
 
@@ -64,8 +64,8 @@ public class MediaDetailViewController implements Initializable {
         });
         seasonCommentColumn.setCellValueFactory(cellData -> {
             Season season = cellData.getValue();
-            if (season.getReviewInfo() != null && !season.getReviewInfo().getReviews().isEmpty()) {
-                Review lastReview = season.getReviewInfo().getReviews().get(season.getReviewInfo().getReviews().size() - 1);
+            if (season.getReviewInfo() != null && season.getReviewInfo().getReviewCount() > 0) {
+                Review lastReview = season.getReviewInfo().getLastReview();
                 return new SimpleStringProperty(lastReview.comment());
             }
             return new SimpleStringProperty("-");
@@ -97,7 +97,7 @@ public class MediaDetailViewController implements Initializable {
 
         if (reviewInfo != null && reviewInfo.getReviewCount() > 0) {
             showNodes(lastReviewBox);
-            Review lastReview = reviewInfo.getReviews().get(reviewInfo.getReviews().size() - 1);
+            Review lastReview = reviewInfo.getLastReview();
             lastReviewRatingLabel.setText(String.format("Nota: %.1f ★", (double) lastReview.rating()));
             lastReviewCommentLabel.setText("\"" + lastReview.comment() + "\"");
         }
@@ -0,0 +1,94 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.TextNormalizer;
+
+import java.util.List;
+
+/**
+ * Critérios de uma consulta ao acervo (ver {@link LibraryService#query(MediaQuery)}).
+ * Os textos são guardados sem espaços nas pontas e nunca nulos.
+ *
+ * @param text texto buscado em títulos, nomes, ISBN e elenco ("" = sem filtro).
+ * @param fuzzy {@code true} para a busca aproximada, tolerante a erros de digitação.
+ * @param genre expressão de gêneros: vírgula = todos, {@code |} = qualquer um ("" = sem filtro).
+ * @param fromYear primeiro ano (inclusive); 0 para não limitar.
+ * @param toYear último ano (inclusive); 0 para não limitar.
+ * @param sortOrder uma das ordens {@code SORT_*} (ex: {@link #SORT_BEST}).
+ */
+public record MediaQuery(String text, boolean fuzzy, String genre, int fromYear, int toYear, String sortOrder) {
+
+    /** Ordem de cadastro (ou, na busca aproximada, do mais para o menos parecido). */
+    public static final String SORT_DEFAULT = "Padrão";
+    public static final String SORT_BEST = "Melhor Avaliados";
+    /** Da menor para a maior nota; mídias ainda não avaliadas ficam no fim. */
+    public static final String SORT_WORST = "Pior Avaliados";
+    public static final String SORT_TITLE = "Título (A-Z)";
+    public static final String SORT_NEWEST = "Mais Recentes";
+    public static final String SORT_OLDEST = "Mais Antigos";
+
+    /** Ordens oferecidas na interface, na ordem em que aparecem. */
+    public static final List<String> SORT_ORDERS =
+            List.of(SORT_DEFAULT, SORT_BEST, SORT_WORST, SORT_TITLE, SORT_NEWEST, SORT_OLDEST);
+
+    public MediaQuery {
+        text = text == null ? "" : text.trim();
+        genre = genre == null ? "" : genre.trim();
+        sortOrder = sortOrder == null ? SORT_DEFAULT : sortOrder;
+    }
+
+    public boolean hasText() {
+        return !text.isEmpty();
+    }
+
+    public boolean hasGenre() {
+        return !genre.isEmpty();
+    }
+
+    public boolean hasYearRange() {
+        return fromYear > 0 || toYear > 0;
+    }
+
+    public boolean isSorted() {
+        return !sortOrder.equals(SORT_DEFAULT);
+    }
+
+    /** @return primeiro ano do filtro, ou o menor ano indexado se não houver limite. */
+    int lowerYear() {
+        return fromYear > 0 ? fromYear : YearIndex.MIN_YEAR;
+    }
+
+    /** @return último ano do filtro, ou o maior ano indexado se não houver limite. */
+    int upperYear() {
+        return toYear > 0 ? toYear : YearIndex.MAX_YEAR;
+    }
+
+    /**
+     * Indica se esta consulta só pode encontrar mídias que a anterior também encontrou
+     * (ex: "harr" → "harry p", um gênero a mais ou um intervalo de anos menor), e portanto
+     * pode ser executada filtrando apenas o resultado anterior. A ordenação não importa.
+     * A busca aproximada nunca é considerada uma restrição.
+     */
+    boolean narrows(MediaQuery previous) {
+        if (fuzzy || previous.fuzzy) return false;
+        if (!TextNormalizer.normalize(text).contains(TextNormalizer.normalize(previous.text))) return false;
+        if (previous.hasYearRange() && (lowerYear() < previous.lowerYear() || upperYear() > previous.upperYear())) {
+            return false;
+        }
+        List<List<String>> groups = GenreIndex.parse(genre);
+        for (List<String> previousGroup : GenreIndex.parse(previous.genre)) {
+            if (groups.stream().noneMatch(group -> implies(group, previousGroup))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Um grupo de gêneros (termos alternativos) implica outro se cada termo seu contém algum termo
+     * do outro: quem tem um gênero com "drama" também tem um gênero com "dram".
+     */
+    private static boolean implies(List<String> group, List<String> other) {
+        for (String term : group) {
+            if (other.stream().noneMatch(term::contains)) return false;
+        }
+        return true;
+    }
+}
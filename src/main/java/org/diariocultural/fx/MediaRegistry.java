@@ -0,0 +1,131 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.Book;
+import org.diariocultural.IntIntHashMap;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.Series;
+
+import java.util.Arrays;
+
+/**
+ * Atribui a cada mídia do acervo um número interno (ordinal) denso e estável durante a sessão,
+ * usado como identificador nos índices de busca do {@link LibraryService}.
+ * <p>
+ * Os ids de livros, filmes e séries se repetem entre os tipos, por isso cada tipo tem
+ * o seu mapa id → ordinal. Uma mídia atualizada mantém o ordinal; uma mídia removida libera
+ * a posição, que não é reaproveitada (os ordinais seguem a ordem de cadastro).
+ * <p>
+ * Como os três catálogos podem ser indexados ao mesmo tempo, ordinais de tipos diferentes se
+ * intercalam. A ordem do catálogo ({@link LibraryService#getAllMedia()}: livros, filmes e séries,
+ * cada tipo na ordem do seu controlador) é a do tipo e, dentro dele, a do ordinal; ver
+ * {@link #compareInCatalog(int, int)}.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class MediaRegistry {
+
+    private final IntIntHashMap bookOrdinals = new IntIntHashMap();
+    private final IntIntHashMap movieOrdinals = new IntIntHashMap();
+    private final IntIntHashMap seriesOrdinals = new IntIntHashMap();
+    private Media[] media = new Media[64];
+    private int nextOrdinal = 0;
+    private int size = 0;
+
+    /**
+     * Registra a mídia, ou substitui o objeto guardado se o id já estava registrado.
+     * @return ordinal da mídia.
+     */
+    int register(Media item) {
+        IntIntHashMap ordinals = ordinalsFor(item);
+        int id = idOf(item);
+        int ordinal = ordinals.get(id, -1);
+        if (ordinal < 0) {
+            ordinal = nextOrdinal++;
+            if (ordinal == media.length) {
+                media = Arrays.copyOf(media, media.length * 2);
+            }
+            ordinals.put(id, ordinal);
+            size++;
+        }
+        media[ordinal] = item;
+        return ordinal;
+    }
+
+    /**
+     * Remove a mídia do registro.
+     * @return ordinal que ela ocupava, ou -1 se não estava registrada.
+     */
+    int unregister(Media item) {
+        IntIntHashMap ordinals = ordinalsFor(item);
+        int id = idOf(item);
+        int ordinal = ordinals.get(id, -1);
+        if (ordinal >= 0) {
+            ordinals.remove(id);
+            media[ordinal] = null;
+            size--;
+        }
+        return ordinal;
+    }
+
+    /** @return mídia com o ordinal informado, ou {@code null} se foi removida. */
+    Media get(int ordinal) {
+        return media[ordinal];
+    }
+
+    /** @return quantidade de mídias registradas. */
+    int size() {
+        return size;
+    }
+
+    /** @return posição do tipo da mídia na ordem do catálogo (0 = livro, 1 = filme, 2 = série). */
+    int group(int ordinal) {
+        return groupOf(media[ordinal]);
+    }
+
+    /**
+     * Compara duas mídias registradas pela ordem do catálogo: primeiro o tipo, depois o ordinal.
+     * Dentro de um tipo, a ordem dos ordinais é a do controlador, já que eles não são reaproveitados.
+     */
+    int compareInCatalog(int a, int b) {
+        int order = Integer.compare(group(a), group(b));
+        return order != 0 ? order : Integer.compare(a, b);
+    }
+
+    /** @return os ordinais (de mídias registradas) em um novo array, na ordem do catálogo. */
+    int[] inCatalogOrder(int[] ordinals) {
+        // Tipo nos bits altos e ordinal nos baixos: ordenar os longs ordena pelos dois
+        long[] keys = new long[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            keys[i] = ((long) group(ordinals[i]) << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    /** @return posição do tipo na ordem do catálogo (0 = livro, 1 = filme, 2 = série). */
+    static int groupOf(Media item) {
+        if (item instanceof Book) return 0;
+        if (item instanceof Movie) return 1;
+        if (item instanceof Series) return 2;
+        throw new IllegalArgumentException("Tipo de mídia desconhecido: " + item.getClass().getName());
+    }
+
+    private IntIntHashMap ordinalsFor(Media item) {
+        if (item instanceof Book) return bookOrdinals;
+        if (item instanceof Movie) return movieOrdinals;
+        if (item instanceof Series) return seriesOrdinals;
+        throw new IllegalArgumentException("Tipo de mídia desconhecido: " + item.getClass().getName());
+    }
+
+    private static int idOf(Media item) {
+        if (item instanceof Book book) return book.getBookId();
+        if (item instanceof Movie movie) return movie.getMovieId();
+        if (item instanceof Series series) return series.getSeriesId();
+        throw new IllegalArgumentException("Tipo de mídia desconhecido: " + item.getClass().getName());
+    }
+}
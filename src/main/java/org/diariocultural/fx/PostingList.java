@@ -0,0 +1,50 @@
+package org.diariocultural.fx;
+
+import java.util.Arrays;
+
+/**
+ * Lista ordenada e sem repetições de ordinais de mídia (ver {@link MediaRegistry}),
+ * usada pelos índices invertidos do acervo.
+ */
+final class PostingList {
+
+    int[] ordinals = new int[4];
+    int size = 0;
+
+    void add(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position >= 0) return;
+        position = -position - 1;
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        ordinals[position] = ordinal;
+        size++;
+    }
+
+    boolean remove(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position < 0) return false;
+        System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Mantém em {@code candidates[0..count)} apenas os ordinais presentes nesta lista.
+     * @return nova quantidade de candidatos.
+     */
+    int retainIn(int[] candidates, int count) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < size; i++) {
+            int candidate = candidates[i];
+            while (j < size && ordinals[j] < candidate) j++;
+            if (j < size && ordinals[j] == candidate) {
+                candidates[kept++] = candidate;
+            }
+        }
+        return kept;
+    }
+}
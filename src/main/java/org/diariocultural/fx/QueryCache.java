@@ -0,0 +1,67 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.Media;
+import org.diariocultural.TextNormalizer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache LRU dos resultados de {@link LibraryService#query(MediaQuery, int)}.
+ * <p>
+ * As entradas valem para uma época do catálogo: o {@link LibraryService} incrementa a época
+ * a cada adição, atualização ou remoção, e a primeira consulta feita numa época nova descarta
+ * todas as entradas anteriores. Assim, repetir uma consulta (ex: ao voltar para a biblioteca)
+ * não refaz filtro nem ordenação enquanto nada mudar.
+ * <p>
+ * Os resultados guardados são listas somente leitura, compartilhadas entre as consultas.
+ */
+class QueryCache {
+
+    /**
+     * Chave normalizada: textos sem acentos e em minúsculas, como os índices os comparam,
+     * de modo que "Ação" e "acao" ocupem a mesma entrada.
+     */
+    private record Key(String text, boolean fuzzy, String genre, int fromYear, int toYear, String sortOrder, int limit) {
+        static Key of(MediaQuery query, int limit) {
+            return new Key(TextNormalizer.normalize(query.text()), query.fuzzy(), TextNormalizer.normalize(query.genre()),
+                    query.fromYear(), query.toYear(), query.sortOrder(), limit);
+        }
+    }
+
+    private final Map<Key, List<Media>> entries;
+    private long epoch;
+
+    /** @param capacity quantidade máxima de consultas guardadas. */
+    QueryCache(int capacity) {
+        this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Media>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param epoch época atual do catálogo.
+     * @return resultado guardado para a consulta, ou {@code null}.
+     */
+    synchronized List<Media> get(MediaQuery query, int limit, long epoch) {
+        advanceTo(epoch);
+        return entries.get(Key.of(query, limit));
+    }
+
+    /** Guarda o resultado (somente leitura) de uma consulta feita na época informada. */
+    synchronized void put(MediaQuery query, int limit, long epoch, List<Media> results) {
+        advanceTo(epoch);
+        entries.put(Key.of(query, limit), results);
+    }
+
+    private void advanceTo(long epoch) {
+        if (epoch != this.epoch) {
+            entries.clear();
+            this.epoch = epoch;
+        }
+    }
+}
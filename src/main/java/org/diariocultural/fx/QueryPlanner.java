@@ -0,0 +1,233 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.TextNormalizer;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Planejador das consultas combinadas do acervo (texto + gênero + ano).
+ * <p>
+ * Cada filtro da {@link MediaQuery} vira um predicado que sabe, a partir das estatísticas
+ * do seu índice, estimar quantas mídias vai selecionar, produzir os ordinais que seleciona
+ * e testar um único ordinal. A execução:
+ * <ol>
+ *   <li>estima todos os predicados (cada estimativa custa O(log n) ou o tamanho do dicionário);</li>
+ *   <li>usa o mais seletivo para produzir os candidatos, pelo índice;</li>
+ *   <li>testa os demais, do mais para o menos seletivo, apenas sobre esses candidatos.</li>
+ * </ol>
+ * Assim o custo fica próximo do tamanho do menor conjunto de resultados, e não do acervo.
+ * <p>
+ * Quando a consulta apenas restringe a anterior (ver {@link MediaQuery#narrows(MediaQuery)}),
+ * {@link #refine(int[], MediaQuery)} testa os filtros só sobre o resultado anterior.
+ * <p>
+ * Deve ser usado com o read lock do {@link LibraryService}. Se a thread que consulta for
+ * interrompida (ex: a busca foi substituída por outra mais nova), a consulta para entre uma etapa
+ * e outra lançando {@link CancellationException}.
+ */
+class QueryPlanner {
+
+    /** Quantidade de candidatos testados entre duas verificações de cancelamento. */
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    /** Filtro executável sobre um índice. */
+    private interface Predicate {
+        /** @return estimativa de quantas mídias o filtro seleciona. */
+        int estimate();
+
+        /** @return ordinais selecionados, obtidos pelo índice. */
+        int[] select();
+
+        /** @return {@code true} se o ordinal atende ao filtro. */
+        boolean test(int ordinal);
+    }
+
+    private final MediaRegistry registry;
+    private final TextIndex textIndex;
+    private final FuzzyIndex fuzzyIndex;
+    private final GenreIndex genreIndex;
+    private final YearIndex yearIndex;
+
+    QueryPlanner(MediaRegistry registry, TextIndex textIndex, FuzzyIndex fuzzyIndex,
+                 GenreIndex genreIndex, YearIndex yearIndex) {
+        this.registry = registry;
+        this.textIndex = textIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.genreIndex = genreIndex;
+        this.yearIndex = yearIndex;
+    }
+
+    /**
+     * Executa a consulta.
+     * @return ordinais encontrados, na ordem do catálogo ({@link MediaRegistry#compareInCatalog})
+     *         ou, na busca aproximada, do mais para o menos parecido; {@code null} se a consulta
+     *         não tem filtros (todo o acervo).
+     */
+    int[] execute(MediaQuery query) {
+        List<Predicate> predicates = predicatesFor(query);
+        if (predicates.isEmpty()) return null;
+        FuzzyPredicate fuzzy = predicates.get(0) instanceof FuzzyPredicate f ? f : null;
+
+        // Mais seletivo primeiro; as estimativas são calculadas uma única vez
+        Map<Predicate, Integer> estimates = new IdentityHashMap<>();
+        for (Predicate predicate : predicates) {
+            estimates.put(predicate, predicate.estimate());
+        }
+        predicates.sort(Comparator.comparingInt(estimates::get));
+        checkCancelled();
+
+        int[] candidates = predicates.get(0).select();
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0) checkCancelled();
+            if (passesAll(candidates[i], predicates)) {
+                candidates[count++] = candidates[i];
+            }
+        }
+        int[] ordinals = Arrays.copyOf(candidates, count);
+        checkCancelled();
+        return fuzzy != null ? fuzzy.rank(ordinals) : registry.inCatalogOrder(ordinals);
+    }
+
+    /**
+     * Aplica a consulta apenas sobre o resultado de uma consulta mais ampla, sem consultar os índices
+     * para gerar candidatos. Não vale para a busca aproximada (o resultado depende da ordenação).
+     *
+     * @param candidates ordinais (na ordem do catálogo) de uma consulta que esta restringe.
+     * @return os candidatos que atendem à consulta, na mesma ordem.
+     */
+    int[] refine(int[] candidates, MediaQuery query) {
+        List<Predicate> predicates = predicatesFor(query);
+        int[] ordinals = new int[candidates.length];
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0) checkCancelled();
+            if (passesAll(candidates[i], predicates, 0)) {
+                ordinals[count++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(ordinals, count);
+    }
+
+    /** @return um predicado por filtro da consulta (a busca aproximada, se houver, vem primeiro). */
+    private List<Predicate> predicatesFor(MediaQuery query) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.hasText()) {
+            String text = TextNormalizer.normalize(query.text());
+            predicates.add(query.fuzzy() ? new FuzzyPredicate(text) : new TextPredicate(text));
+        }
+        if (query.hasGenre()) {
+            List<List<String>> groups = GenreIndex.parse(query.genre());
+            if (!groups.isEmpty()) predicates.add(new GenrePredicate(groups));
+        }
+        if (query.hasYearRange()) {
+            predicates.add(new YearPredicate(query.lowerYear(), query.upperYear()));
+        }
+        return predicates;
+    }
+
+    /**
+     * Interrompe a consulta se a thread foi interrompida.
+     * @throws CancellationException se a consulta foi cancelada.
+     */
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Consulta cancelada");
+        }
+    }
+
+    private static boolean passesAll(int ordinal, List<Predicate> predicates) {
+        return passesAll(ordinal, predicates, 1);
+    }
+
+    private static boolean passesAll(int ordinal, List<Predicate> predicates, int first) {
+        for (int i = first; i < predicates.size(); i++) {
+            if (!predicates.get(i).test(ordinal)) return false;
+        }
+        return true;
+    }
+
+    private static int[] toArray(BitSet bits) {
+        int[] ordinals = new int[bits.cardinality()];
+        int i = 0;
+        for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+            ordinals[i++] = ordinal;
+        }
+        return ordinals;
+    }
+
+    private final class TextPredicate implements Predicate {
+        private final String text;
+
+        TextPredicate(String text) { this.text = text; }
+
+        @Override public int estimate() { return textIndex.estimate(text); }
+        @Override public int[] select() { return textIndex.search(text); }
+        @Override public boolean test(int ordinal) { return textIndex.matches(ordinal, text); }
+    }
+
+    /** Busca aproximada: guarda a similaridade de cada ordinal aceito para ordenar o resultado. */
+    private final class FuzzyPredicate implements Predicate {
+        private final String text;
+        private final List<String> words;
+        private final Map<Integer, Double> scores = new HashMap<>();
+
+        FuzzyPredicate(String text) {
+            this.text = text;
+            this.words = TextIndex.tokensOf(text);
+        }
+
+        // Sem estatística barata: só conduz a consulta quando não há outro filtro
+        @Override public int estimate() { return registry.size(); }
+
+        @Override public int[] select() {
+            List<FuzzyIndex.Match> matches = fuzzyIndex.search(text);
+            int[] ordinals = new int[matches.size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = matches.get(i).ordinal();
+                scores.put(ordinals[i], matches.get(i).score());
+            }
+            return ordinals;
+        }
+
+        @Override public boolean test(int ordinal) {
+            double score = fuzzyIndex.score(ordinal, words);
+            if (score < 0) return false;
+            scores.put(ordinal, score);
+            return true;
+        }
+
+        /** @return os ordinais do mais para o menos parecido (empates pela ordem do catálogo). */
+        int[] rank(int[] ordinals) {
+            return Arrays.stream(ordinals).boxed()
+                    .sorted(Comparator.comparingDouble((Integer ordinal) -> scores.get(ordinal)).reversed()
+                            .thenComparing(registry::compareInCatalog))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    private final class GenrePredicate implements Predicate {
+        private final List<List<String>> groups;
+
+        GenrePredicate(List<List<String>> groups) { this.groups = groups; }
+
+        @Override public int estimate() { return genreIndex.estimate(groups); }
+        @Override public int[] select() { return toArray(genreIndex.filter(groups)); }
+        @Override public boolean test(int ordinal) { return genreIndex.matches(ordinal, groups); }
+    }
+
+    private final class YearPredicate implements Predicate {
+        private final int from;
+        private final int to;
+
+        YearPredicate(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override public int estimate() { return yearIndex.count(from, to); }
+        @Override public int[] select() { return toArray(yearIndex.range(from, to)); }
+        @Override public boolean test(int ordinal) { return yearIndex.matches(ordinal, from, to); }
+    }
+}
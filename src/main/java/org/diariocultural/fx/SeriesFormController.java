@@ -71,8 +71,8 @@ public class SeriesFormController implements Initializable {
         seasonCommentColumn.setCellValueFactory(cellData -> {
             Season season = cellData.getValue();
             String commentText = "-";
-            if (season.getReviewInfo() != null && !season.getReviewInfo().getReviews().isEmpty()) {
-                commentText = season.getReviewInfo().getReviews().get(season.getReviewInfo().getReviews().size() - 1).comment();
+            if (season.getReviewInfo() != null && season.getReviewInfo().getReviewCount() > 0) {
+                commentText = season.getReviewInfo().getLastReview().comment();
             }
             return new SimpleStringProperty(commentText);
         });
@@ -0,0 +1,242 @@
+package org.diariocultural.fx;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Visões ordenadas do acervo, mantidas incrementalmente: por nota média, por título e por ano.
+ * <p>
+ * Guarda a chave de cada ordinal (nota, título normalizado, ano) em arrays e um {@link TreeSet}
+ * de ordinais por critério, cujo comparador lê essas chaves. Ao reindexar uma mídia, ela sai
+ * das árvores com a chave antiga e volta com a nova, em O(log n).
+ * <p>
+ * Um resultado ordenado é servido de duas formas, conforme o tamanho:
+ * <ul>
+ *   <li>percorrendo a árvore em ordem e filtrando pelos ordinais selecionados (bom para
+ *       seleções grandes e para top-K, que para ao atingir o limite);</li>
+ *   <li>ordenando só os ordinais selecionados pelas chaves guardadas (bom para seleções
+ *       pequenas), sem recalcular notas a cada comparação.</li>
+ * </ul>
+ * Empates mantêm a ordem do catálogo (tipo e, dentro dele, ordem de cadastro; ver
+ * {@link MediaRegistry#compareInCatalog(int, int)}), como a ordenação estável anterior.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class SortedViews {
+
+    private double[] ratings = new double[64];
+    private String[] titles = new String[64];
+    private int[] years = new int[64];
+    private int[] groups = new int[64];
+    private boolean[] present = new boolean[64];
+
+    // Nota decrescente; os não avaliados (0) ficam no fim
+    private final Comparator<Integer> ratingOrder = (a, b) -> {
+        int order = Double.compare(ratings[b], ratings[a]);
+        return order != 0 ? order : catalogOrder(a, b);
+    };
+    private final Comparator<Integer> titleOrder = (a, b) -> {
+        int order = titles[a].compareTo(titles[b]);
+        return order != 0 ? order : catalogOrder(a, b);
+    };
+    // Ano decrescente (mais recentes primeiro)
+    private final Comparator<Integer> yearOrder = (a, b) -> {
+        int order = Integer.compare(years[b], years[a]);
+        return order != 0 ? order : catalogOrder(a, b);
+    };
+
+    private final TreeSet<Integer> byRating = new TreeSet<>(ratingOrder);
+    private final TreeSet<Integer> byTitle = new TreeSet<>(titleOrder);
+    private final TreeSet<Integer> byYear = new TreeSet<>(yearOrder);
+
+    /**
+     * Indexa (ou reindexa) as chaves de ordenação de uma mídia.
+     *
+     * @param group posição do tipo na ordem do catálogo ({@link MediaRegistry#group(int)}).
+     */
+    void put(int ordinal, int group, double rating, String titleKey, int year) {
+        remove(ordinal);
+        if (ordinal >= present.length) {
+            int capacity = Math.max(present.length * 2, ordinal + 1);
+            ratings = Arrays.copyOf(ratings, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            years = Arrays.copyOf(years, capacity);
+            groups = Arrays.copyOf(groups, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+        ratings[ordinal] = rating;
+        titles[ordinal] = titleKey;
+        years[ordinal] = year;
+        groups[ordinal] = group;
+        present[ordinal] = true;
+        byRating.add(ordinal);
+        byTitle.add(ordinal);
+        byYear.add(ordinal);
+    }
+
+    /** Remove a mídia das visões, se estiver indexada. */
+    void remove(int ordinal) {
+        if (ordinal >= present.length || !present[ordinal]) return;
+        // Sai das árvores enquanto as chaves antigas ainda estão nos arrays
+        byRating.remove(ordinal);
+        byTitle.remove(ordinal);
+        byYear.remove(ordinal);
+        present[ordinal] = false;
+        titles[ordinal] = null;
+    }
+
+    /**
+     * Ordena uma seleção de ordinais.
+     *
+     * @param selection ordinais selecionados, ou {@code null} para todo o acervo.
+     * @param sortOrder critério ({@link MediaQuery#SORT_BEST}, {@link MediaQuery#SORT_WORST}, ...).
+     * @param limit quantidade máxima de ordinais retornados (top-K).
+     * @return ordinais na ordem pedida.
+     */
+    int[] order(int[] selection, String sortOrder, int limit) {
+        int total = byRating.size();
+        if (selection != null && isSmall(selection.length, total)) {
+            return sortSelection(selection, sortOrder, limit);
+        }
+        IntPredicate selected;
+        if (selection == null) {
+            selected = ordinal -> true;
+        } else {
+            BitSet bits = new BitSet();
+            for (int ordinal : selection) bits.set(ordinal);
+            selected = bits::get;
+        }
+        int capacity = Math.min(limit, selection != null ? selection.length : total);
+        int[] result = new int[capacity];
+        int count = 0;
+        for (int ordinal : walk(sortOrder)) {
+            if (count == capacity) break;
+            if (selected.test(ordinal)) result[count++] = ordinal;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** Ordenar a seleção é mais barato que percorrer a árvore quando m·log m &lt; n. */
+    private static boolean isSmall(int selected, int total) {
+        return (long) selected * (32 - Integer.numberOfLeadingZeros(Math.max(selected, 1))) < total;
+    }
+
+    private int[] sortSelection(int[] selection, String sortOrder, int limit) {
+        Integer[] boxed = new Integer[selection.length];
+        for (int i = 0; i < selection.length; i++) boxed[i] = selection[i];
+        Arrays.sort(boxed, comparator(sortOrder));
+        int[] result = new int[Math.min(limit, boxed.length)];
+        for (int i = 0; i < result.length; i++) result[i] = boxed[i];
+        return result;
+    }
+
+    /** @return os ordinais de todo o acervo na ordem pedida, percorridos sob demanda. */
+    private Iterable<Integer> walk(String sortOrder) {
+        return switch (sortOrder) {
+            case MediaQuery.SORT_BEST -> byRating;
+            case MediaQuery.SORT_WORST -> worstFirst();
+            case MediaQuery.SORT_TITLE -> byTitle;
+            case MediaQuery.SORT_NEWEST -> byYear;
+            case MediaQuery.SORT_OLDEST -> () -> new TieOrderedDescendingIterator(byYear, (a, b) -> years[a] == years[b]);
+            default -> throw new IllegalArgumentException("Ordenação desconhecida: " + sortOrder);
+        };
+    }
+
+    /** Avaliados da menor para a maior nota e, depois, os não avaliados. */
+    private Iterable<Integer> worstFirst() {
+        return () -> new Iterator<>() {
+            private final Iterator<Integer> rated =
+                    new TieOrderedDescendingIterator(byRating, (a, b) -> ratings[a] == ratings[b], ordinal -> ratings[ordinal] > 0);
+            private final Iterator<Integer> unrated = byRating.stream().filter(ordinal -> ratings[ordinal] <= 0).iterator();
+
+            @Override public boolean hasNext() { return rated.hasNext() || unrated.hasNext(); }
+            @Override public Integer next() { return rated.hasNext() ? rated.next() : unrated.next(); }
+        };
+    }
+
+    private Comparator<Integer> comparator(String sortOrder) {
+        return switch (sortOrder) {
+            case MediaQuery.SORT_BEST -> ratingOrder;
+            case MediaQuery.SORT_WORST -> (a, b) -> {
+                boolean ratedA = ratings[a] > 0;
+                boolean ratedB = ratings[b] > 0;
+                if (ratedA != ratedB) return ratedA ? -1 : 1;
+                int order = Double.compare(ratings[a], ratings[b]);
+                return order != 0 ? order : catalogOrder(a, b);
+            };
+            case MediaQuery.SORT_TITLE -> titleOrder;
+            case MediaQuery.SORT_NEWEST -> yearOrder;
+            case MediaQuery.SORT_OLDEST -> (a, b) -> {
+                int order = Integer.compare(years[a], years[b]);
+                return order != 0 ? order : catalogOrder(a, b);
+            };
+            default -> throw new IllegalArgumentException("Ordenação desconhecida: " + sortOrder);
+        };
+    }
+
+    /** Desempate: ordem do catálogo (tipo, depois ordinal). */
+    private int catalogOrder(int a, int b) {
+        int order = Integer.compare(groups[a], groups[b]);
+        return order != 0 ? order : Integer.compare(a, b);
+    }
+
+    /**
+     * Percorre uma árvore de trás para frente, mas devolve cada grupo de chaves iguais na ordem
+     * do catálogo, como uma ordenação estável faria.
+     */
+    private static final class TieOrderedDescendingIterator implements Iterator<Integer> {
+        private final Iterator<Integer> descending;
+        private final BiIntPredicate sameKey;
+        private final IntPredicate accept;
+        private final Deque<Integer> group = new ArrayDeque<>();
+        private Integer pending;
+
+        TieOrderedDescendingIterator(TreeSet<Integer> tree, BiIntPredicate sameKey) {
+            this(tree, sameKey, ordinal -> true);
+        }
+
+        TieOrderedDescendingIterator(TreeSet<Integer> tree, BiIntPredicate sameKey, IntPredicate accept) {
+            this.descending = tree.descendingIterator();
+            this.sameKey = sameKey;
+            this.accept = accept;
+            advance();
+        }
+
+        private void advance() {
+            pending = null;
+            while (descending.hasNext()) {
+                int ordinal = descending.next();
+                if (accept.test(ordinal)) {
+                    pending = ordinal;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !group.isEmpty() || pending != null;
+        }
+
+        @Override
+        public Integer next() {
+            if (group.isEmpty()) {
+                if (pending == null) throw new NoSuchElementException();
+                // Dentro do grupo, os ordinais chegam na ordem inversa do catálogo: empilha para inverter
+                int first = pending;
+                group.push(first);
+                advance();
+                while (pending != null && sameKey.test(first, pending)) {
+                    group.push(pending);
+                    advance();
+                }
+            }
+            return group.pop();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BiIntPredicate {
+        boolean test(int a, int b);
+    }
+}
@@ -0,0 +1,267 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Índice de sugestões (autocompletar) do campo de busca do acervo.
+ * <p>
+ * Cada frase sugerível (títulos, autores, diretores, criadores, elenco) é guardada uma única vez
+ * numa tabela de frases, com o seu texto normalizado. O índice é um {@code long[]} ordenado de pares
+ * (frase, posição), um para cada início de palavra: para "O Senhor dos Anéis" são guardadas as
+ * posições de "o senhor dos aneis", "senhor dos aneis", "dos aneis" e "aneis", comparadas
+ * diretamente sobre o texto normalizado da frase, sem criar uma string por chave.
+ * Assim, digitar "sen" ou "ane" sugere o título completo: as sugestões de um prefixo são uma faixa
+ * contígua do array, localizada por busca binária (O(log n)) e lida até o limite pedido.
+ * <p>
+ * Inserções vão para um segundo array ordenado, pequeno (cerca de √n pares), que é intercalado
+ * com o principal quando enche. Frases que nenhuma mídia usa mais deixam de ser sugeridas na hora
+ * e são descartadas, com os seus pares, na intercalação seguinte.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class SuggestionIndex {
+
+    private static final int MIN_PENDING = 64;
+
+    // Tabela de frases, pelo id: texto exibido, texto normalizado, quantas mídias a usam
+    // e quantos pares ela tem no índice
+    private final Map<String, Integer> phraseIds = new HashMap<>();
+    private String[] phrases = new String[64];
+    private String[] normalized = new String[64];
+    private int[] references = new int[64];
+    private int[] entryCounts = new int[64];
+    private int phraseBound = 0;
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+
+    // Pares (id da frase << 32 | posição do início da palavra), ordenados pelo texto a partir
+    // da posição e, no empate, pela frase exibida
+    private long[] entries = new long[0];
+    private int entryCount = 0;
+    private long[] pending = new long[MIN_PENDING];
+    private int pendingCount = 0;
+    /** Pares de frases sem nenhuma mídia, ainda não descartados. */
+    private int deadEntries = 0;
+
+    private String[][] phrasesByOrdinal = new String[64][];
+
+    /**
+     * Indexa (ou reindexa) as frases sugeríveis de uma mídia.
+     */
+    void put(int ordinal, Collection<String> phrases) {
+        remove(ordinal);
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String phrase : phrases) {
+            if (phrase != null && !phrase.isBlank()) distinct.add(phrase.strip());
+        }
+        String[] stored = distinct.toArray(new String[0]);
+        if (ordinal >= phrasesByOrdinal.length) {
+            phrasesByOrdinal = Arrays.copyOf(phrasesByOrdinal, Math.max(phrasesByOrdinal.length * 2, ordinal + 1));
+        }
+        phrasesByOrdinal[ordinal] = stored;
+        for (String phrase : stored) {
+            acquire(phrase);
+        }
+    }
+
+    /** Remove as frases de uma mídia, se estiver indexada. */
+    void remove(int ordinal) {
+        if (ordinal >= phrasesByOrdinal.length || phrasesByOrdinal[ordinal] == null) return;
+        for (String phrase : phrasesByOrdinal[ordinal]) {
+            release(phrase);
+        }
+        phrasesByOrdinal[ordinal] = null;
+        if (deadEntries > MIN_PENDING && deadEntries > entryCount / 2) {
+            merge();
+        }
+    }
+
+    /**
+     * @param prefix texto digitado.
+     * @param limit quantidade máxima de sugestões.
+     * @return frases cujo início (ou o início de alguma de suas palavras) corresponde ao texto,
+     *         sem diferenciar acentos nem maiúsculas, em ordem alfabética e sem repetições.
+     */
+    List<String> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix.stripLeading());
+        if (key.isEmpty() || limit <= 0) return List.of();
+        Set<String> suggestions = new LinkedHashSet<>();
+        int main = lowerBound(entries, entryCount, key);
+        int recent = lowerBound(pending, pendingCount, key);
+        while (suggestions.size() < limit) {
+            boolean hasMain = main < entryCount && startsWith(entries[main], key);
+            boolean hasRecent = recent < pendingCount && startsWith(pending[recent], key);
+            if (!hasMain && !hasRecent) break;
+            long entry = hasMain && (!hasRecent || compare(entries[main], pending[recent]) <= 0)
+                    ? entries[main++] : pending[recent++];
+            int id = phraseOf(entry);
+            if (references[id] > 0) suggestions.add(phrases[id]);
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    private void acquire(String phrase) {
+        Integer existing = phraseIds.get(phrase);
+        if (existing == null) {
+            int id = newPhrase(phrase);
+            references[id] = 1;
+            addEntries(id);
+            return;
+        }
+        int id = existing;
+        if (references[id]++ == 0) {
+            deadEntries -= entryCounts[id]; // Os pares ainda não tinham sido descartados
+        }
+    }
+
+    private void release(String phrase) {
+        Integer id = phraseIds.get(phrase);
+        if (id != null && --references[id] == 0) {
+            deadEntries += entryCounts[id];
+        }
+    }
+
+    private int newPhrase(String phrase) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = phraseBound++;
+            if (id == phrases.length) {
+                int capacity = phrases.length * 2;
+                phrases = Arrays.copyOf(phrases, capacity);
+                normalized = Arrays.copyOf(normalized, capacity);
+                references = Arrays.copyOf(references, capacity);
+                entryCounts = Arrays.copyOf(entryCounts, capacity);
+            }
+        }
+        phrases[id] = phrase;
+        normalized[id] = TextNormalizer.normalize(phrase);
+        phraseIds.put(phrase, id);
+        return id;
+    }
+
+    /** Insere um par para cada início de palavra da frase. */
+    private void addEntries(int id) {
+        String text = normalized[id];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            boolean wordStart = Character.isLetterOrDigit(text.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+            if (wordStart) {
+                insertPending(((long) id << 32) | i);
+                count++;
+            }
+        }
+        entryCounts[id] = count;
+        if (pendingCount >= Math.max(MIN_PENDING, (int) Math.sqrt(entryCount))) {
+            merge();
+        }
+    }
+
+    private void insertPending(long entry) {
+        int low = 0;
+        int high = pendingCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(pending[middle], entry) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        System.arraycopy(pending, low, pending, low + 1, pendingCount - low);
+        pending[low] = entry;
+        pendingCount++;
+    }
+
+    /**
+     * Intercala os pares recentes no array principal, descartando os das frases que nenhuma
+     * mídia usa mais, e libera essas frases da tabela.
+     */
+    private void merge() {
+        long[] merged = new long[entryCount + pendingCount - deadEntries];
+        int size = 0;
+        int main = 0;
+        int recent = 0;
+        while (main < entryCount || recent < pendingCount) {
+            long entry = recent == pendingCount
+                    || (main < entryCount && compare(entries[main], pending[recent]) <= 0)
+                    ? entries[main++] : pending[recent++];
+            if (references[phraseOf(entry)] > 0) merged[size++] = entry;
+        }
+        entries = merged;
+        entryCount = size;
+        pendingCount = 0;
+        deadEntries = 0;
+        for (int id = 0; id < phraseBound; id++) {
+            if (phrases[id] != null && references[id] == 0) {
+                phraseIds.remove(phrases[id]);
+                phrases[id] = null;
+                normalized[id] = null;
+                if (freeCount == freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+                }
+                freeIds[freeCount++] = id;
+            }
+        }
+    }
+
+    /** Ordem dos pares: texto a partir da posição; no empate, a frase exibida. */
+    private int compare(long a, long b) {
+        int idA = phraseOf(a);
+        int idB = phraseOf(b);
+        String textA = normalized[idA];
+        String textB = normalized[idB];
+        int offsetA = (int) a;
+        int offsetB = (int) b;
+        int lengthA = textA.length() - offsetA;
+        int lengthB = textB.length() - offsetB;
+        for (int i = 0, n = Math.min(lengthA, lengthB); i < n; i++) {
+            char charA = textA.charAt(offsetA + i);
+            char charB = textB.charAt(offsetB + i);
+            if (charA != charB) return charA - charB;
+        }
+        if (lengthA != lengthB) return lengthA - lengthB;
+        return phrases[idA].compareTo(phrases[idB]);
+    }
+
+    /** @return primeira posição cujo texto é maior ou igual ao prefixo. */
+    private int lowerBound(long[] array, int size, String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareToKey(array[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareToKey(long entry, String key) {
+        String text = normalized[phraseOf(entry)];
+        int offset = (int) entry;
+        int length = text.length() - offset;
+        for (int i = 0, n = Math.min(length, key.length()); i < n; i++) {
+            char c = text.charAt(offset + i);
+            if (c != key.charAt(i)) return c - key.charAt(i);
+        }
+        return length - key.length();
+    }
+
+    private boolean startsWith(long entry, String key) {
+        return normalized[phraseOf(entry)].startsWith(key, (int) entry);
+    }
+
+    private static int phraseOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+}
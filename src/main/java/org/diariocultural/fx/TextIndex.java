@@ -0,0 +1,166 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.Media;
+
+import java.util.*;
+
+/**
+ * Índice invertido para a busca por texto do acervo.
+ * <p>
+ * Cada mídia (identificada pelo ordinal do {@link MediaRegistry}) tem um documento: a sua
+ * {@link Media#getSearchKey() chave de busca}, com os campos pesquisáveis já normalizados.
+ * As palavras do documento são decompostas
+ * em n-gramas de 1 a {@value #GRAM_LENGTH} caracteres e cada n-grama aponta para a lista
+ * ordenada dos ordinais que o contêm.
+ * <p>
+ * Uma busca por substring intersecta as listas dos n-gramas da consulta, começando pela menor,
+ * e só confirma com {@code contains} os candidatos que sobraram, sem percorrer o acervo inteiro.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class TextIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private String[] documents = new String[64];
+    private int documentCount = 0;
+
+    /**
+     * Indexa (ou reindexa) o documento de um ordinal.
+     */
+    void put(int ordinal, String document) {
+        remove(ordinal);
+        if (ordinal >= documents.length) {
+            documents = Arrays.copyOf(documents, Math.max(documents.length * 2, ordinal + 1));
+        }
+        documents[ordinal] = document;
+        documentCount++;
+        for (String gram : gramsOf(document)) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(ordinal);
+        }
+    }
+
+    /** Remove o ordinal do índice, se estiver indexado. */
+    void remove(int ordinal) {
+        if (ordinal >= documents.length || documents[ordinal] == null) return;
+        for (String gram : gramsOf(documents[ordinal])) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(ordinal) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        documents[ordinal] = null;
+        documentCount--;
+    }
+
+    /**
+     * Busca os documentos que contêm a consulta como substring.
+     *
+     * @param query texto da consulta, já normalizado e sem espaços nas pontas.
+     * @return ordinais encontrados, em ordem crescente.
+     */
+    int[] search(String query) {
+        List<PostingList> lists = postingListsFor(query);
+        if (lists == null) return new int[0];
+
+        int[] candidates;
+        int count;
+        if (lists.isEmpty()) {
+            // Consulta sem letras nem dígitos (ex: "-"): confere todos os documentos
+            candidates = new int[documents.length];
+            count = 0;
+            for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+                if (documents[ordinal] != null) candidates[count++] = ordinal;
+            }
+        } else {
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            candidates = Arrays.copyOf(lists.get(0).ordinals, lists.get(0).size);
+            count = candidates.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = lists.get(i).retainIn(candidates, count);
+            }
+        }
+
+        int matches = 0;
+        for (int i = 0; i < count; i++) {
+            if (documents[candidates[i]].contains(query)) {
+                candidates[matches++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, matches);
+    }
+
+    /**
+     * Estimativa (limite superior) do tamanho do resultado de {@link #search(String)}:
+     * o tamanho da menor lista entre os n-gramas da consulta.
+     */
+    int estimate(String query) {
+        List<PostingList> lists = postingListsFor(query);
+        if (lists == null) return 0;
+        int estimate = documentCount;
+        for (PostingList list : lists) {
+            estimate = Math.min(estimate, list.size);
+        }
+        return estimate;
+    }
+
+    /** @return {@code true} se o documento do ordinal contém a consulta normalizada. */
+    boolean matches(int ordinal, String query) {
+        return ordinal < documents.length && documents[ordinal] != null && documents[ordinal].contains(query);
+    }
+
+    /**
+     * @return listas de ordinais dos n-gramas da consulta (vazia se a consulta não tem palavras),
+     *         ou {@code null} se algum n-grama não existe no índice (nenhum documento pode conter a consulta).
+     */
+    private List<PostingList> postingListsFor(String query) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String token : tokensOf(query)) {
+            if (token.length() <= GRAM_LENGTH) {
+                if (!addPostingList(lists, token)) return null;
+            } else {
+                for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+                    if (!addPostingList(lists, token.substring(i, i + GRAM_LENGTH))) return null;
+                }
+            }
+        }
+        return lists;
+    }
+
+    private boolean addPostingList(List<PostingList> lists, String gram) {
+        PostingList list = postings.get(gram);
+        if (list == null) return false;
+        lists.add(list);
+        return true;
+    }
+
+    /** @return n-gramas de 1 a GRAM_LENGTH caracteres de todas as palavras do documento. */
+    private static Set<String> gramsOf(String document) {
+        Set<String> grams = new HashSet<>();
+        for (String token : tokensOf(document)) {
+            for (int length = 1; length <= GRAM_LENGTH; length++) {
+                for (int i = 0; i + length <= token.length(); i++) {
+                    grams.add(token.substring(i, i + length));
+                }
+            }
+        }
+        return grams;
+    }
+
+    /** Divide o texto em palavras (sequências de letras e dígitos). */
+    static List<String> tokensOf(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
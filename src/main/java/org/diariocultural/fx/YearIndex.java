@@ -0,0 +1,134 @@
+package org.diariocultural.fx;
+
+import java.time.Year;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Índice de anos do acervo, para filtros por ano exato ou por intervalo (ex: 1990–1999).
+ * <p>
+ * Guarda, para cada ano, um {@link BitSet} com os ordinais das mídias daquele ano. Incluir ou
+ * remover uma mídia custa um bit por ano indexado, sem deslocar nada. A quantidade de mídias por
+ * ano fica numa árvore de Fenwick, que dá a contagem de um intervalo (usada como estimativa pelo
+ * {@link QueryPlanner}) em O(log anos).
+ * <p>
+ * Já {@link #range(int, int)} não é logarítmico: é a união dos bitmaps dos anos do intervalo,
+ * O(anos × n/64) para n ordinais, com o intervalo limitado aos anos que têm alguma mídia. É uma
+ * escolha deliberada: o acervo ocupa algumas dezenas de anos, cada união percorre palavras de 64
+ * ordinais, e uma série com vários anos no ar continua sendo um único bit por ano, sem repetir o
+ * ordinal no resultado. Um array ordenado de (ano, ordinal) com busca binária daria O(log n + k),
+ * mas precisaria deslocar elementos a cada inclusão e eliminar as séries repetidas.
+ * <p>
+ * Livros e filmes têm uma entrada, no ano de lançamento. Séries têm uma entrada para cada ano
+ * em que estiveram no ar, de {@code releaseYear} a {@code endYear} (ou até o ano atual, se
+ * ainda não terminaram), de modo que uma série de 1995 a 2005 aparece no filtro 2000–2001.
+ * <p>
+ * Não é thread-safe: o acesso é protegido pelo lock do {@link LibraryService}.
+ */
+class YearIndex {
+
+    /** Limites usados para intervalos abertos (ex: "a partir de 1990"). */
+    static final int MIN_YEAR = 1;
+    static final int MAX_YEAR = 9999;
+
+    /** Ordinais de cada ano (índice = ano); {@code null} enquanto o ano não tiver nenhuma mídia. */
+    private final BitSet[] byYear = new BitSet[MAX_YEAR + 1];
+    /** Árvore de Fenwick (índice = ano) com a quantidade de entradas de cada ano. */
+    private final int[] counts = new int[MAX_YEAR + 1];
+    // Menor e maior ano que já tiveram alguma mídia, para não percorrer anos vazios
+    private int minIndexedYear = MAX_YEAR + 1;
+    private int maxIndexedYear = MIN_YEAR - 1;
+    // Anos indexados de cada ordinal, para a remoção (0 = não indexado)
+    private int[] firstYears = new int[64];
+    private int[] lastYears = new int[64];
+
+    /**
+     * Indexa (ou reindexa) os anos de uma mídia.
+     *
+     * @param releaseYear ano de lançamento; anos não positivos (desconhecidos) não são indexados.
+     * @param endYear último ano (igual ao de lançamento para livros e filmes; 0 = ainda em exibição).
+     */
+    void put(int ordinal, int releaseYear, int endYear) {
+        remove(ordinal);
+        if (releaseYear <= 0) return;
+        int lastYear = endYear > 0 ? Math.max(endYear, releaseYear) : Math.max(Year.now().getValue(), releaseYear);
+        if (ordinal >= firstYears.length) {
+            int capacity = Math.max(firstYears.length * 2, ordinal + 1);
+            firstYears = Arrays.copyOf(firstYears, capacity);
+            lastYears = Arrays.copyOf(lastYears, capacity);
+        }
+        firstYears[ordinal] = releaseYear;
+        lastYears[ordinal] = lastYear;
+        int from = Math.max(releaseYear, MIN_YEAR);
+        int to = Math.min(lastYear, MAX_YEAR);
+        for (int year = from; year <= to; year++) {
+            if (byYear[year] == null) byYear[year] = new BitSet();
+            byYear[year].set(ordinal);
+            addCount(year, 1);
+        }
+        if (from <= to) {
+            minIndexedYear = Math.min(minIndexedYear, from);
+            maxIndexedYear = Math.max(maxIndexedYear, to);
+        }
+    }
+
+    /** Remove a mídia do índice, se estiver indexada. */
+    void remove(int ordinal) {
+        if (ordinal >= firstYears.length || firstYears[ordinal] == 0) return;
+        int to = Math.min(lastYears[ordinal], MAX_YEAR);
+        for (int year = Math.max(firstYears[ordinal], MIN_YEAR); year <= to; year++) {
+            byYear[year].clear(ordinal);
+            addCount(year, -1);
+        }
+        firstYears[ordinal] = 0;
+        lastYears[ordinal] = 0;
+    }
+
+    /**
+     * @param from primeiro ano do intervalo (inclusive).
+     * @param to último ano do intervalo (inclusive).
+     * @return bitmap dos ordinais com algum ano no intervalo (novo, pode ser alterado), em
+     *         O(anos do intervalo × n/64); ver a descrição da classe.
+     */
+    BitSet range(int from, int to) {
+        BitSet result = new BitSet();
+        from = Math.max(from, minIndexedYear);
+        to = Math.min(to, maxIndexedYear);
+        for (int year = from; year <= to; year++) {
+            if (byYear[year] != null) result.or(byYear[year]);
+        }
+        return result;
+    }
+
+    /**
+     * @return quantidade de entradas no intervalo, em O(log anos). Uma série que atravessa
+     *         vários anos do intervalo conta mais de uma vez (serve como estimativa).
+     */
+    int count(int from, int to) {
+        from = Math.max(from, MIN_YEAR);
+        to = Math.min(to, MAX_YEAR);
+        if (from > to) return 0;
+        return countUpTo(to) - countUpTo(from - 1);
+    }
+
+    /** @return {@code true} se a mídia tem algum ano indexado dentro do intervalo. */
+    boolean matches(int ordinal, int from, int to) {
+        return ordinal < firstYears.length && firstYears[ordinal] != 0
+                && firstYears[ordinal] <= to && lastYears[ordinal] >= from;
+    }
+
+    private void addCount(int year, int delta) {
+        for (int i = year; i <= MAX_YEAR; i += i & -i) {
+            counts[i] += delta;
+        }
+    }
+
+    /** @return quantidade de entradas dos anos {@code MIN_YEAR..year}. */
+    private int countUpTo(int year) {
+        int total = 0;
+        for (int i = year; i > 0; i -= i & -i) {
+            total += counts[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package org.diariocultural;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Alterações em lote feitas pelos controladores sobrevivem a um reinício: o catálogo lido de novo
+ * do snapshot e do journal é igual ao que estava em memória.
+ */
+class ControllerRestartTest {
+
+    @TempDir
+    File directory;
+
+    private final StorageEngine storage = new JsonStorageEngine();
+
+    private BookController restart() {
+        PersistenceService.getDefault().awaitDurability();
+        return new BookController(storage, directory.getPath());
+    }
+
+    private static List<Book> newBooks(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Livro " + i, null, List.of("Drama"), 2000, "Autor", "Editora", "isbn-" + i,
+                    false, false, null, null));
+        }
+        return books;
+    }
+
+    private static List<String> titles(BookController controller) {
+        List<String> titles = new ArrayList<>();
+        for (Book book : controller.getAllBooks()) titles.add(book.getBookId() + ":" + book.getTitle());
+        return titles;
+    }
+
+    @Test
+    void largeBatchRemovalIsNotUndoneByOlderJournalEntries() {
+        BookController books = restart();
+        books.addAll(newBooks(300));
+        books.addBookViaObject(newBooks(1).get(0));
+        books.removeAll(books.getAllBooks());
+        assertEquals(0, books.getAllBooks().size());
+
+        assertEquals(List.of(), titles(restart()));
+    }
+
+    @Test
+    void largeBatchUpdateIsNotRolledBack() {
+        BookController books = restart();
+        books.addAll(newBooks(300));
+        List<Book> renamed = new ArrayList<>();
+        for (Book book : books.getAllBooks()) {
+            book.setTitle(book.getTitle() + " (revisado)");
+            renamed.add(book);
+        }
+        books.updateAll(renamed);
+        List<String> expected = titles(books);
+
+        assertEquals(expected, titles(restart()));
+    }
+
+    @Test
+    void batchesSurviveCompactionAndARestartInBetween() {
+        BookController books = restart();
+        // Lotes grandes o bastante para passar do limite do journal e forçar compactações
+        for (int i = 0; i < 6; i++) {
+            books.addAll(newBooks(1000));
+        }
+        List<Book> all = books.getAllBooks();
+        books.removeAll(all.subList(0, all.size() / 2));
+        List<String> expected = titles(books);
+
+        BookController restarted = restart();
+        assertEquals(expected, titles(restarted));
+        restarted.removeAll(restarted.getAllBooks());
+        assertEquals(List.of(), titles(restart()));
+    }
+}
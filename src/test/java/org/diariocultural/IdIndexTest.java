@@ -0,0 +1,74 @@
+package org.diariocultural;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Snapshots do {@link IdIndex} lidos por outra thread enquanto a coleção é alterada.
+ */
+class IdIndexTest {
+
+    @Test
+    void snapshotIsImmutableAndReusedUntilTheNextChange() {
+        IdIndex<Integer> index = new IdIndex<>(Integer::intValue);
+        index.add(1);
+        index.add(2);
+        List<Integer> first = index.snapshot();
+        assertSame(first, index.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(3));
+
+        index.removeId(1);
+        index.put(3);
+        assertEquals(List.of(1, 2), first);
+        assertEquals(List.of(2, 3), index.snapshot());
+    }
+
+    @Test
+    void snapshotsTakenDuringConcurrentChangesAreConsistent() throws InterruptedException {
+        IdIndex<Integer> index = new IdIndex<>(Integer::intValue);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Leitor: cada snapshot deve ter itens distintos, sem posições vazias, e a lista de ids
+        // 0..n-1 do escritor em ordem crescente (ele só remove o menor e insere no fim)
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    List<Integer> items = index.snapshot();
+                    Set<Integer> seen = new HashSet<>();
+                    int previous = -1;
+                    for (Integer item : items) {
+                        assertNotNull(item);
+                        assertTrue(seen.add(item), "item repetido");
+                        assertTrue(item > previous, "fora de ordem");
+                        previous = item;
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+
+        int oldest = 0;
+        for (int id = 0; id < 200_000; id++) {
+            index.add(id);
+            // Mantém entre 50 e 100 itens, forçando compactações frequentes
+            if (index.size() > 100) {
+                while (index.size() > 50) index.removeId(oldest++);
+            }
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get(), () -> String.valueOf(failure.get()));
+        assertEquals(index.size(), index.snapshot().size());
+    }
+}
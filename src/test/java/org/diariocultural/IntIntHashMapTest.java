@@ -0,0 +1,62 @@
+package org.diariocultural;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere o {@link IntIntHashMap} contra um {@link HashMap}, inclusive na remoção com
+ * deslocamento das chaves seguintes (chaves que colidem no mesmo trecho da tabela).
+ */
+class IntIntHashMapTest {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        IntIntHashMap map = new IntIntHashMap();
+        // Múltiplos da capacidade tendem a cair no mesmo trecho da tabela
+        for (int i = 0; i < 8; i++) map.put(i * 1024, i);
+        assertTrue(map.remove(0));
+        assertTrue(map.remove(3 * 1024));
+        assertFalse(map.remove(3 * 1024));
+        for (int i = 0; i < 8; i++) {
+            int expected = (i == 0 || i == 3) ? MISSING : i;
+            assertEquals(expected, map.get(i * 1024, MISSING), "chave " + i * 1024);
+        }
+        assertEquals(6, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(6);
+        for (int step = 0; step < 200_000; step++) {
+            // Poucas chaves distintas (inclusive negativas e 0) para forçar colisões e reaproveitamento
+            int key = random.nextInt(2_000) - 500;
+            switch (random.nextInt(3)) {
+                case 0, 1 -> {
+                    int value = random.nextInt();
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                default -> assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+            if (step % 1_000 == 0) {
+                assertEquals(expected.size(), map.size());
+                for (int probe = -500; probe < 1_500; probe++) {
+                    assertEquals(expected.getOrDefault(probe, MISSING), map.get(probe, MISSING));
+                    assertEquals(expected.containsKey(probe), map.containsKey(probe));
+                }
+            }
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+}
@@ -0,0 +1,57 @@
+package org.diariocultural;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ler e gravar de novo os arquivos de dados de exemplo (data/*.json) não altera o conteúdo,
+ * inclusive a ordem dos campos das avaliações.
+ */
+class JsonRoundTripTest {
+
+    private final JsonStorageEngine engine = new JsonStorageEngine();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private <T> void assertRoundTrip(String file, Class<T> type) throws IOException {
+        byte[] original = Files.readAllBytes(Path.of("data", file));
+        List<T> items = new ArrayList<>();
+        engine.read(new ByteArrayInputStream(original), type, items::add);
+        assertFalse(items.isEmpty());
+
+        JsonNode written = mapper.readTree(engine.encode(items, type));
+        assertEquals(mapper.readTree(original), written);
+        // A comparação acima ignora a ordem dos campos; a do ReviewInfo é verificada à parte
+        for (JsonNode item : written) {
+            JsonNode reviewInfo = item.get("reviewInfo");
+            if (reviewInfo == null || reviewInfo.isNull()) continue;
+            List<String> fields = new ArrayList<>();
+            reviewInfo.fieldNames().forEachRemaining(fields::add);
+            assertEquals(List.of("reviews", "averageRating", "lastRating", "reviewCount"), fields);
+        }
+    }
+
+    @Test
+    void booksAreWrittenBackUnchanged() throws IOException {
+        assertRoundTrip("books.json", Book.class);
+    }
+
+    @Test
+    void moviesAreWrittenBackUnchanged() throws IOException {
+        assertRoundTrip("movies.json", Movie.class);
+    }
+
+    @Test
+    void seriesAreWrittenBackUnchanged() throws IOException {
+        assertRoundTrip("series.json", Series.class);
+    }
+}
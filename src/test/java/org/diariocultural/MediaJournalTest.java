@@ -0,0 +1,266 @@
+package org.diariocultural;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reaplicação do journal de mutações após um encerramento (normal ou interrompido)
+ * e a compactação em snapshot.
+ */
+class MediaJournalTest {
+
+    @TempDir
+    File directory;
+
+    /** Ouvinte que ignora as notificações da reaplicação. */
+    private static final CatalogListener<Book> IGNORED = new CatalogListener<>() {
+        @Override public void added(Book item) {}
+        @Override public void updated(Book item) {}
+        @Override public void removed(Book item) {}
+    };
+
+    private PersistenceService persistence;
+    private final StorageEngine engine = new JsonStorageEngine();
+
+    @BeforeEach
+    void startPersistence() {
+        persistence = new PersistenceService();
+    }
+
+    @AfterEach
+    void stopPersistence() {
+        persistence.shutdown(5);
+    }
+
+    private MediaJournal<Book> newJournal() {
+        return new MediaJournal<>(directory.getPath(), "books", Book.class, Book::getBookId, persistence);
+    }
+
+    private static Book book(int id, String title) {
+        return new Book(title, List.of("Drama"), 2000 + id, id, null, "Autor", "Editora", "isbn-" + id,
+                false, false, null, null);
+    }
+
+    /** Reaplica os segmentos sobre os livros do snapshot carregado, como na inicialização. */
+    private IdIndex<Book> replay(List<Book> snapshot, SnapshotFiles.Source loaded) {
+        IdIndex<Book> books = new IdIndex<>(Book::getBookId);
+        books.addAll(snapshot);
+        newJournal().replay(books, loaded, IGNORED);
+        return books;
+    }
+
+    private static List<String> titles(IdIndex<Book> books) {
+        return titles(books.snapshot());
+    }
+
+    private static List<String> titles(List<Book> books) {
+        List<String> titles = new ArrayList<>();
+        for (Book book : books) titles.add(book.getBookId() + ":" + book.getTitle());
+        return titles;
+    }
+
+    @Test
+    void replaysAddUpdateAndDeleteInOrder() {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        journal.append(MediaJournal.Operation.ADD, book(1, "Um"));
+        journal.appendAll(MediaJournal.Operation.ADD, List.of(book(2, "Dois"), book(3, "Três")));
+        journal.append(MediaJournal.Operation.UPDATE, book(2, "Dois (revisado)"));
+        journal.append(MediaJournal.Operation.DELETE, book(1, "Um"));
+        persistence.awaitDurability();
+
+        assertEquals(List.of("2:Dois (revisado)", "3:Três"), titles(replay(List.of(), SnapshotFiles.Source.NONE)));
+    }
+
+    @Test
+    void ignoresTruncatedLineAfterCrashAndKeepsWritingToNewSegment() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        journal.append(MediaJournal.Operation.ADD, book(1, "Um"));
+        journal.append(MediaJournal.Operation.ADD, book(2, "Dois"));
+        persistence.awaitDurability();
+
+        // Queda no meio de uma gravação: a última linha ficou pela metade
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".journal"));
+        assertNotNull(segments);
+        assertEquals(1, segments.length);
+        try (FileOutputStream out = new FileOutputStream(segments[0], true)) {
+            out.write("{\"op\":\"ADD\",\"id\":3,\"record\":{\"title\":\"Tr".getBytes(StandardCharsets.UTF_8));
+        }
+
+        IdIndex<Book> recovered = new IdIndex<>(Book::getBookId);
+        MediaJournal<Book> restarted = newJournal();
+        restarted.replay(recovered, SnapshotFiles.Source.NONE, IGNORED);
+        assertEquals(List.of("1:Um", "2:Dois"), titles(recovered));
+
+        // As novas alterações não continuam o segmento com a linha incompleta
+        restarted.append(MediaJournal.Operation.UPDATE, book(1, "Um (revisado)"));
+        persistence.awaitDurability();
+        assertEquals(List.of("1:Um (revisado)", "2:Dois"), titles(replay(List.of(), SnapshotFiles.Source.NONE)));
+    }
+
+    /** Compacta como os controladores: serializa na thread que chama e grava em segundo plano. */
+    private List<Book> compact(MediaJournal<Book> journal, List<Book> books) throws IOException {
+        List<Book> written = new ArrayList<>();
+        journal.compactInBackground(engine.encode(books, Book.class), content -> {
+            try {
+                engine.read(new ByteArrayInputStream(content), Book.class, written::add);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        });
+        return written;
+    }
+
+    @Test
+    void compactionKeepsChangesMadeAfterTheSnapshot() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        Book first = book(1, "Um");
+        journal.append(MediaJournal.Operation.ADD, first);
+        journal.append(MediaJournal.Operation.ADD, book(2, "Dois"));
+
+        List<Book> written = compact(journal, List.of(first, book(2, "Dois")));
+        // Alterações feitas enquanto o snapshot espera na fila não entram nele, só no journal
+        first.setTitle("Um (revisado)");
+        journal.append(MediaJournal.Operation.UPDATE, first);
+        journal.append(MediaJournal.Operation.DELETE, book(2, "Dois"));
+        persistence.awaitDurability();
+
+        assertEquals(List.of("1:Um", "2:Dois"), titles(written));
+        assertFalse(journal.needsCompaction());
+        IdIndex<Book> recovered = new IdIndex<>(Book::getBookId);
+        recovered.addAll(written);
+        newJournal().replay(recovered, SnapshotFiles.Source.CURRENT, IGNORED);
+        assertEquals(List.of("1:Um (revisado)"), titles(recovered));
+    }
+
+    @Test
+    void fallbackToPreviousSnapshotStillReplaysLaterChanges() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        Book first = book(1, "Um");
+        journal.appendAll(MediaJournal.Operation.ADD, List.of(first, book(2, "Dois")));
+        List<Book> previousSnapshot = compact(journal, List.of(first, book(2, "Dois")));
+        persistence.awaitDurability();
+
+        first.setTitle("Um (revisado)");
+        journal.append(MediaJournal.Operation.UPDATE, first);
+        journal.append(MediaJournal.Operation.ADD, book(3, "Três"));
+        List<Book> currentSnapshot = compact(journal, List.of(first, book(2, "Dois"), book(3, "Três")));
+
+        journal.append(MediaJournal.Operation.DELETE, book(2, "Dois"));
+        persistence.awaitDurability();
+
+        List<String> expected = List.of("1:Um (revisado)", "3:Três");
+        assertEquals(expected, titles(replay(currentSnapshot, SnapshotFiles.Source.CURRENT)));
+        // Snapshot principal corrompido: a inicialização usa o .bak, que é o snapshot anterior
+        assertEquals(expected, titles(replay(previousSnapshot, SnapshotFiles.Source.PREVIOUS)));
+    }
+
+    @Test
+    void changesInTheSnapshotButNotInTheJournalAreNotRolledBack() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        journal.appendAll(MediaJournal.Operation.ADD, List.of(book(1, "Um"), book(2, "Dois")));
+        // Alterações que não chegaram ao journal (ex: falha ao serializar) só existem no snapshot
+        List<Book> previousSnapshot = compact(journal, List.of(book(1, "Um (fora do journal)")));
+        persistence.awaitDurability(); // Um snapshot ainda na fila seria substituído pelo seguinte
+
+        journal.append(MediaJournal.Operation.ADD, book(3, "Três"));
+        List<Book> currentSnapshot = compact(journal, List.of(book(1, "Um (fora do journal)"), book(3, "Três"),
+                book(4, "Quatro")));
+        journal.append(MediaJournal.Operation.UPDATE, book(3, "Três (revisado)"));
+        persistence.awaitDurability();
+
+        assertEquals(List.of("1:Um (fora do journal)", "3:Três (revisado)", "4:Quatro"),
+                titles(replay(currentSnapshot, SnapshotFiles.Source.CURRENT)));
+        // O .bak só recebe os segmentos posteriores a ele: o livro 4 se perde, o 2 não volta
+        assertEquals(List.of("1:Um (fora do journal)", "3:Três (revisado)"),
+                titles(replay(previousSnapshot, SnapshotFiles.Source.PREVIOUS)));
+    }
+
+    @Test
+    void generationRecordHasNoPreviousGenerationFile() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(MediaJournal.Operation.ADD, book(i, "Livro " + i));
+            compact(journal, List.of(book(i, "Livro " + i)));
+            persistence.awaitDurability();
+        }
+        persistence.awaitDurability();
+
+        assertTrue(new File(directory, "books.generation").isFile());
+        assertFalse(new File(directory, "books.generation" + SnapshotFiles.PREVIOUS_SUFFIX).exists());
+    }
+
+    @Test
+    void newSegmentsNeverReuseAGenerationCoveredByASnapshot() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        journal.append(MediaJournal.Operation.ADD, book(1, "Um"));
+        compact(journal, List.of(book(1, "Um")));
+        persistence.awaitDurability();
+        // Mais duas compactações sem alterações: os segmentos cobertos somem do disco
+        for (int i = 0; i < 2; i++) {
+            compact(journal, List.of(book(1, "Um")));
+            persistence.awaitDurability();
+        }
+        assertEquals(0, directory.listFiles((dir, name) -> name.endsWith(".journal")).length);
+        List<Book> snapshot = List.of(book(1, "Um"));
+
+        IdIndex<Book> recovered = new IdIndex<>(Book::getBookId);
+        recovered.addAll(snapshot);
+        MediaJournal<Book> restarted = newJournal();
+        restarted.replay(recovered, SnapshotFiles.Source.CURRENT, IGNORED);
+        restarted.append(MediaJournal.Operation.ADD, book(2, "Dois"));
+        persistence.awaitDurability();
+
+        assertEquals(List.of("1:Um", "2:Dois"), titles(replay(snapshot, SnapshotFiles.Source.CURRENT)));
+    }
+
+    @Test
+    void failedWriteKeepsItsLinesAndIsReportedByAwaitDurability() throws IOException {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        // Um diretório no lugar do segmento ativo faz a gravação falhar
+        File segment = new File(directory, "books.000001.journal");
+        assertTrue(segment.mkdir());
+        journal.append(MediaJournal.Operation.ADD, book(1, "Um"));
+        assertThrows(UncheckedIOException.class, persistence::awaitDurability);
+        assertTrue(journal.needsCompaction());
+
+        // A falha é informada uma vez; a próxima gravação leva também as linhas que falharam
+        assertTrue(segment.delete());
+        persistence.awaitDurability();
+        journal.append(MediaJournal.Operation.ADD, book(2, "Dois"));
+        persistence.awaitDurability();
+        assertEquals(List.of("1:Um", "2:Dois"), titles(replay(List.of(), SnapshotFiles.Source.NONE)));
+    }
+
+    @Test
+    void failedSnapshotIsReportedByAwaitDurability() {
+        MediaJournal<Book> journal = newJournal();
+        journal.replay(new IdIndex<>(Book::getBookId), SnapshotFiles.Source.NONE, IGNORED);
+        journal.append(MediaJournal.Operation.ADD, book(1, "Um"));
+        journal.compactInBackground(new byte[0], content -> false);
+        assertThrows(UncheckedIOException.class, persistence::awaitDurability);
+        assertTrue(journal.needsCompaction());
+        assertEquals(List.of("1:Um"), titles(replay(List.of(), SnapshotFiles.Source.NONE)));
+    }
+}
@@ -0,0 +1,90 @@
+package org.diariocultural;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carga do snapshot direto no {@link IdIndex}, avisando o ouvinte a cada registro, e descarte
+ * da carga parcial antes de recorrer à geração anterior.
+ */
+class SnapshotLoadTest {
+
+    @TempDir
+    File directory;
+
+    private final StorageEngine engine = new JsonStorageEngine();
+
+    private static Book book(int id, String title) {
+        return new Book(title, List.of("Drama"), 2000 + id, id, null, "Autor", "Editora", "isbn-" + id,
+                false, false, null, null);
+    }
+
+    /** Guarda os ids que o ouvinte considera presentes no catálogo. */
+    private static final class LiveIds implements CatalogListener<Book> {
+        final Set<Integer> ids = new HashSet<>();
+        final List<String> events = new ArrayList<>();
+
+        @Override public void added(Book item) { assertTrue(ids.add(item.getBookId())); events.add("+" + item.getBookId()); }
+        @Override public void updated(Book item) { assertTrue(ids.contains(item.getBookId())); }
+        @Override public void removed(Book item) { assertTrue(ids.remove(item.getBookId())); events.add("-" + item.getBookId()); }
+    }
+
+    private static List<Integer> ids(IdIndex<Book> books) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : books.snapshot()) ids.add(book.getBookId());
+        return ids;
+    }
+
+    @Test
+    void recordsGoStraightIntoTheIndexAndTheListener() throws IOException {
+        File file = new File(directory, "books.json");
+        engine.saveSnapshot(file, List.of(book(1, "Um"), book(2, "Dois")), Book.class);
+
+        IdIndex<Book> books = new IdIndex<>(Book::getBookId);
+        LiveIds listener = new LiveIds();
+        assertEquals(SnapshotFiles.Source.CURRENT, engine.loadSnapshot(file, Book.class, books, listener));
+        assertEquals(List.of(1, 2), ids(books));
+        assertEquals(List.of("+1", "+2"), listener.events);
+    }
+
+    @Test
+    void partialLoadIsDiscardedBeforeFallingBackToThePreviousGeneration() throws IOException {
+        File file = new File(directory, "books.json");
+        engine.saveSnapshot(file, List.of(book(1, "Um"), book(2, "Dois")), Book.class);
+        byte[] current = engine.encode(List.of(book(1, "Um"), book(3, "Três"), book(4, "Quatro")), Book.class);
+        // Gravação interrompida: o novo snapshot termina no meio do último registro
+        engine.saveSnapshot(file, Arrays.copyOf(current, current.length - 20));
+
+        IdIndex<Book> books = new IdIndex<>(Book::getBookId);
+        LiveIds listener = new LiveIds();
+        assertEquals(SnapshotFiles.Source.PREVIOUS, engine.loadSnapshot(file, Book.class, books, listener));
+        assertEquals(List.of(1, 2), ids(books));
+        assertEquals(Set.of(1, 2), listener.ids);
+        assertEquals(List.of("+1", "+3", "-1", "-3", "+1", "+2"), listener.events);
+    }
+
+    @Test
+    void unreadableGenerationsLeaveNothingBehind() throws IOException {
+        File file = new File(directory, "books.json");
+        byte[] content = engine.encode(List.of(book(1, "Um"), book(2, "Dois")), Book.class);
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length - 20));
+        Files.write(SnapshotFiles.previousGeneration(file).toPath(), Arrays.copyOf(content, content.length - 20));
+
+        IdIndex<Book> books = new IdIndex<>(Book::getBookId);
+        LiveIds listener = new LiveIds();
+        assertThrows(IOException.class, () -> engine.loadSnapshot(file, Book.class, books, listener));
+        assertTrue(books.isEmpty());
+        assertTrue(listener.ids.isEmpty());
+    }
+}
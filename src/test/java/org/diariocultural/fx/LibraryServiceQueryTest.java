@@ -0,0 +1,295 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere {@link LibraryService#query(MediaQuery, int)} (planejador, visões ordenadas, cache e
+ * refinamento do resultado anterior) contra uma filtragem direta de todas as mídias, para todas as
+ * combinações de texto, gênero, intervalo de anos e ordenação, antes e depois de alterar o acervo.
+ */
+class LibraryServiceQueryTest {
+
+    private static final String[] WORDS = {"Sol", "Mar", "Lua", "Casa", "Rio", "Noite", "Ação", "Ódio",
+            "Marte", "Solidão", "Amor", "Luar"};
+    private static final String[] GENRES = {"Drama", "Comédia", "Ação", "Ficção Científica", "Documentário",
+            "Dramédia"};
+
+    private static final List<String> TEXTS = List.of("", "a", "ma", "mar", "sol", "SOLI", "ação", "a m", "xyz");
+    private static final List<String> GENRE_FILTERS = List.of("", "drama", "dram", "drama, acao",
+            "comedia | documentario", "fic|dra, a", "nenhum");
+    private static final int[][] YEAR_RANGES = {{0, 0}, {2000, 0}, {0, 1999}, {1995, 2005}, {2010, 2010},
+            {2030, 0}};
+
+    @TempDir
+    File directory;
+
+    private final Random random = new Random(42);
+    private BookController books;
+    private MovieController movies;
+    private SeriesController series;
+    private LibraryService service;
+
+    @BeforeEach
+    void createCatalog() {
+        StorageEngine storage = new JsonStorageEngine();
+        books = new BookController(storage, directory.getPath());
+        movies = new MovieController(storage, directory.getPath());
+        series = new SeriesController(storage, directory.getPath());
+        service = LibraryService.of(books, movies, series);
+    }
+
+    @AfterEach
+    void flush() {
+        PersistenceService.getDefault().awaitDurability();
+    }
+
+    private String randomTitle() {
+        int words = 1 + random.nextInt(3);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) title.append(' ');
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    private List<String> randomGenres() {
+        List<String> genres = new ArrayList<>();
+        int count = random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            String genre = GENRES[random.nextInt(GENRES.length)];
+            if (!genres.contains(genre)) genres.add(genre);
+        }
+        return genres;
+    }
+
+    /** Ano entre 1990 e 2025, ou 0 (desconhecido) de vez em quando. */
+    private int randomYear() {
+        return random.nextInt(10) == 0 ? 0 : 1990 + random.nextInt(36);
+    }
+
+    private void randomReviews(Media media) {
+        int reviews = random.nextInt(3);
+        for (int i = 0; i < reviews; i++) {
+            media.addReview(1 + random.nextInt(ReviewInfo.MAX_RATING), null);
+        }
+    }
+
+    private void addRandomMedia(int count) {
+        List<Book> newBooks = new ArrayList<>();
+        List<Movie> newMovies = new ArrayList<>();
+        List<Series> newSeries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    Book book = new Book(randomTitle(), null, randomGenres(), randomYear(), randomTitle(),
+                            "Editora", "isbn", false, false, null, null);
+                    randomReviews(book);
+                    newBooks.add(book);
+                }
+                case 1 -> {
+                    Movie movie = new Movie(randomTitle(), null, randomGenres(), 100, randomYear(), randomTitle(),
+                            null, List.of(randomTitle()), List.of(), false, null, null);
+                    randomReviews(movie);
+                    newMovies.add(movie);
+                }
+                default -> {
+                    int releaseYear = randomYear();
+                    // Metade ainda em exibição (endYear = 0)
+                    int endYear = random.nextBoolean() || releaseYear == 0 ? 0 : releaseYear + random.nextInt(8);
+                    newSeries.add(new Series(randomTitle(), null, randomTitle(), randomGenres(), releaseYear, endYear,
+                            List.of(), List.of(), false));
+                }
+            }
+        }
+        books.addAll(newBooks);
+        movies.addAll(newMovies);
+        series.addAll(newSeries);
+    }
+
+    /** Remove, renomeia e reavalia algumas mídias e cadastra outras. */
+    private void changeCatalog() {
+        List<Book> allBooks = books.getAllBooks();
+        books.removeAll(allBooks.subList(0, allBooks.size() / 3));
+        for (Book book : books.getAllBooks()) {
+            if (random.nextInt(4) == 0) {
+                book.setTitle(randomTitle());
+                book.addReview(random.nextInt(ReviewInfo.MAX_RATING + 1), null);
+                books.updateBook(book);
+            }
+        }
+        List<Movie> allMovies = movies.getAllMovies();
+        for (int i = 0; i < allMovies.size(); i += 4) {
+            movies.removeMovie(allMovies.get(i));
+        }
+        List<Series> allSeries = series.getAllSeries();
+        series.removeAll(allSeries.subList(allSeries.size() / 2, allSeries.size()));
+        addRandomMedia(150);
+    }
+
+    // --- Filtragem direta ---
+
+    private static boolean matches(Media media, MediaQuery query) {
+        if (query.hasText() && !media.getSearchKey().contains(TextNormalizer.normalize(query.text()))) {
+            return false;
+        }
+        for (List<String> group : GenreIndex.parse(query.genre())) {
+            boolean any = false;
+            for (String genre : media.getGenreKeys()) {
+                for (String term : group) any |= genre.contains(term);
+            }
+            if (!any) return false;
+        }
+        if (query.hasYearRange()) {
+            int releaseYear = media.getReleaseYear();
+            if (releaseYear <= 0) return false;
+            int lastYear = releaseYear;
+            if (media instanceof Series s) {
+                lastYear = s.getEndYear() > 0 ? Math.max(s.getEndYear(), releaseYear)
+                        : Math.max(Year.now().getValue(), releaseYear);
+            }
+            if (releaseYear > query.upperYear() || lastYear < query.lowerYear()) return false;
+        }
+        return true;
+    }
+
+    /** Ordem esperada; empates ficam na ordem da lista recebida (ordenação estável). */
+    private static Comparator<Media> comparator(String sortOrder) {
+        ToDoubleFunction<Media> rating = Media::getAverageRating;
+        Function<Media, String> title = media -> TextNormalizer.normalize(media.getTitle());
+        return switch (sortOrder) {
+            case MediaQuery.SORT_BEST -> Comparator.comparingDouble(rating).reversed();
+            case MediaQuery.SORT_WORST -> Comparator.<Media>comparingInt(media -> media.getAverageRating() > 0 ? 0 : 1)
+                    .thenComparingDouble(rating);
+            case MediaQuery.SORT_TITLE -> Comparator.comparing(title);
+            case MediaQuery.SORT_NEWEST -> Comparator.comparingInt(Media::getReleaseYear).reversed();
+            case MediaQuery.SORT_OLDEST -> Comparator.comparingInt(Media::getReleaseYear);
+            default -> (a, b) -> 0;
+        };
+    }
+
+    /** Mesmas mídias (por identidade), na mesma ordem. */
+    private static void assertSameOrder(List<Media> expected, List<Media> actual, String description) {
+        assertEquals(expected.size(), actual.size(), description);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), description + " posição " + i);
+        }
+    }
+
+    /**
+     * Na ordem "Padrão", o resultado é a filtragem direta de {@link LibraryService#getAllMedia()},
+     * na mesma ordem; nas demais, a ordenação estável dessa lista.
+     */
+    private void assertMatchesBruteForce(MediaQuery query) {
+        List<Media> expected = new ArrayList<>();
+        for (Media media : service.getAllMedia()) {
+            if (matches(media, query)) expected.add(media);
+        }
+        String description = query.toString();
+
+        MediaQuery unsorted = new MediaQuery(query.text(), false, query.genre(), query.fromYear(), query.toYear(),
+                MediaQuery.SORT_DEFAULT);
+        assertSameOrder(expected, service.query(unsorted), description);
+
+        List<Media> sorted = new ArrayList<>(expected);
+        sorted.sort(comparator(query.sortOrder()));
+        assertSameOrder(sorted, service.query(query), description);
+        assertSameOrder(sorted.subList(0, Math.min(5, sorted.size())), service.query(query, 5), description);
+    }
+
+    private void assertAllCombinations() {
+        for (String text : TEXTS) {
+            for (String genre : GENRE_FILTERS) {
+                for (int[] years : YEAR_RANGES) {
+                    for (String sortOrder : MediaQuery.SORT_ORDERS) {
+                        assertMatchesBruteForce(new MediaQuery(text, false, genre, years[0], years[1], sortOrder));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void allFilterAndSortCombinationsMatchBruteForce() {
+        addRandomMedia(600);
+        assertEquals(600, service.getAllMedia().size());
+        assertTrue(service.query(new MediaQuery("ma", false, "drama", 1995, 2005, MediaQuery.SORT_DEFAULT)).size() > 0);
+        assertAllCombinations();
+        changeCatalog();
+        assertAllCombinations();
+    }
+
+    @Test
+    void typingAQueryRefinesThePreviousResult() {
+        addRandomMedia(400);
+        String[] typed = {"m", "ma", "mar", "mar ", "mar s", "mar so"};
+        for (String text : typed) {
+            assertMatchesBruteForce(new MediaQuery(text, false, "dra", 1995, 0, MediaQuery.SORT_DEFAULT));
+        }
+        // Mais restrições de gênero e de ano sobre o mesmo texto
+        assertMatchesBruteForce(new MediaQuery("ma", false, "drama", 1995, 2010, MediaQuery.SORT_TITLE));
+        assertMatchesBruteForce(new MediaQuery("ma", false, "drama, acao|comedia", 2000, 2005, MediaQuery.SORT_TITLE));
+        // Uma alteração no catálogo entre duas consultas não pode reaproveitar o resultado anterior
+        Book book = new Book("Mar Morto", null, List.of("Drama", "Ação"), 2003, "Jorge Amado",
+                "Editora", "isbn", false, false, null, null);
+        books.addBookViaObject(book);
+        assertMatchesBruteForce(new MediaQuery("mar m", false, "drama, acao", 2000, 2005, MediaQuery.SORT_TITLE));
+        books.removeBook(book);
+        assertMatchesBruteForce(new MediaQuery("mar mo", false, "drama, acao", 2000, 2005, MediaQuery.SORT_TITLE));
+    }
+
+    @Test
+    void interruptedQueryStopsWithoutCachingAPartialResult() {
+        addRandomMedia(300);
+        MediaQuery query = new MediaQuery("ma", false, "drama", 1995, 0, MediaQuery.SORT_TITLE);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> service.query(query));
+        } finally {
+            Thread.interrupted();
+        }
+        assertMatchesBruteForce(query);
+        assertMatchesBruteForce(new MediaQuery("mar", false, "drama", 1995, 0, MediaQuery.SORT_TITLE));
+    }
+
+    @Test
+    void resultsAndTiesFollowTheCatalogOrder() {
+        Book alphaBook = new Book("Alpha book", null, List.of("Drama"), 2001, "Autor", "Editora", "isbn", false,
+                false, null, null);
+        Movie alphaMovie = new Movie("Alpha movie", null, List.of("Drama"), 100, 2001, "Diretor", null, List.of(),
+                List.of(), false, null, null);
+        Book alphaBook2 = new Book("Alpha book 2", null, List.of("Drama"), 2001, "Autor", "Editora", "isbn", false,
+                false, null, null);
+        books.addBookViaObject(alphaBook);
+        movies.addMovieViaObject(alphaMovie);
+        books.addBookViaObject(alphaBook2);
+
+        // Livros antes de filmes, como em getAllMedia(), mesmo que o filme tenha sido cadastrado antes
+        List<Media> expected = List.of(alphaBook, alphaBook2, alphaMovie);
+        for (String text : List.of("", "alpha")) {
+            for (String sortOrder : List.of(MediaQuery.SORT_DEFAULT, MediaQuery.SORT_BEST, MediaQuery.SORT_WORST,
+                    MediaQuery.SORT_NEWEST, MediaQuery.SORT_OLDEST)) {
+                MediaQuery query = new MediaQuery(text, false, "", 0, 0, sortOrder);
+                assertSameOrder(expected, service.query(query), query.toString());
+            }
+        }
+        assertSameOrder(expected, service.query(new MediaQuery("", false, "drama", 2001, 2001,
+                MediaQuery.SORT_DEFAULT)), "gênero e ano");
+        assertSameOrder(expected, service.searchText("alpha"), "searchText");
+        assertSameOrder(expected, service.findByYearRange(2001, 2001), "findByYearRange");
+        assertSameOrder(expected, service.searchFuzzy("alpha"), "searchFuzzy");
+    }
+}
@@ -0,0 +1,59 @@
+package org.diariocultural.fx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Casos de {@link MediaQuery#narrows(MediaQuery)}: quando uma consulta só pode encontrar
+ * mídias que a anterior também encontrou.
+ */
+class MediaQueryTest {
+
+    private static MediaQuery query(String text, String genre, int fromYear, int toYear) {
+        return new MediaQuery(text, false, genre, fromYear, toYear, MediaQuery.SORT_DEFAULT);
+    }
+
+    @Test
+    void longerTextNarrows() {
+        assertTrue(query("harry p", "", 0, 0).narrows(query("harr", "", 0, 0)));
+        assertTrue(query("Ação", "", 0, 0).narrows(query("aca", "", 0, 0)));
+        assertTrue(query("harry", "", 0, 0).narrows(query("", "", 0, 0)));
+        assertFalse(query("harr", "", 0, 0).narrows(query("harry", "", 0, 0)));
+        assertFalse(query("potter", "", 0, 0).narrows(query("harry", "", 0, 0)));
+    }
+
+    @Test
+    void yearRangeInsideThePreviousNarrows() {
+        assertTrue(query("", "", 1995, 2000).narrows(query("", "", 1990, 2005)));
+        assertTrue(query("", "", 1995, 2000).narrows(query("", "", 0, 0)));
+        assertTrue(query("", "", 1995, 0).narrows(query("", "", 1990, 0)));
+        assertFalse(query("", "", 1985, 2000).narrows(query("", "", 1990, 2005)));
+        assertFalse(query("", "", 1995, 0).narrows(query("", "", 1990, 2005)));
+        assertFalse(query("", "", 0, 0).narrows(query("", "", 1990, 2005)));
+    }
+
+    @Test
+    void genreGroupsNarrowWhenEveryPreviousGroupIsImplied() {
+        assertTrue(query("", "drama", 0, 0).narrows(query("", "dra", 0, 0)));
+        assertTrue(query("", "drama, acao", 0, 0).narrows(query("", "drama", 0, 0)));
+        assertTrue(query("", "drama", 0, 0).narrows(query("", "drama | comedia", 0, 0)));
+        assertTrue(query("", "drama", 0, 0).narrows(query("", "", 0, 0)));
+        assertFalse(query("", "drama | comedia", 0, 0).narrows(query("", "drama", 0, 0)));
+        assertFalse(query("", "drama", 0, 0).narrows(query("", "drama, acao", 0, 0)));
+        assertFalse(query("", "", 0, 0).narrows(query("", "drama", 0, 0)));
+    }
+
+    @Test
+    void fuzzyQueriesNeverNarrow() {
+        MediaQuery fuzzy = new MediaQuery("harry p", true, "", 0, 0, MediaQuery.SORT_DEFAULT);
+        assertFalse(fuzzy.narrows(query("harr", "", 0, 0)));
+        assertFalse(query("harry p", "", 0, 0).narrows(new MediaQuery("harr", true, "", 0, 0, MediaQuery.SORT_DEFAULT)));
+    }
+
+    @Test
+    void sortOrderDoesNotMatter() {
+        MediaQuery sorted = new MediaQuery("harry", false, "", 0, 0, MediaQuery.SORT_TITLE);
+        assertTrue(sorted.narrows(query("har", "", 0, 0)));
+    }
+}
@@ -0,0 +1,94 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.TextNormalizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere o {@link SuggestionIndex} contra uma implementação direta: todas as chaves
+ * "texto a partir do início da palavra + frase" em um {@link TreeSet}.
+ */
+class SuggestionIndexTest {
+
+    private static final String[] WORDS = {"O", "Senhor", "dos", "Anéis", "Ação", "acaso", "Sol", "sólido",
+            "Dom", "Casmurro", "2001", "Uma", "Odisseia", "Ana", "ana-lua"};
+
+    @Test
+    void suggestsTitlesByAnyWordStart() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.put(0, List.of("O Senhor dos Anéis", "J.R.R. Tolkien"));
+        index.put(1, List.of("Dom Casmurro", "Machado de Assis"));
+
+        assertEquals(List.of("O Senhor dos Anéis"), index.suggest("ane", 8));
+        assertEquals(List.of("O Senhor dos Anéis"), index.suggest("  SEN", 8));
+        assertEquals(List.of("Dom Casmurro", "O Senhor dos Anéis"), index.suggest("do", 8));
+        assertEquals(List.of("J.R.R. Tolkien"), index.suggest("tolk", 8));
+        assertEquals(List.of(), index.suggest("enhor", 8));
+
+        index.remove(0);
+        assertEquals(List.of("Dom Casmurro"), index.suggest("do", 8));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomChanges() {
+        Random random = new Random(11);
+        SuggestionIndex index = new SuggestionIndex();
+        Map<Integer, List<String>> indexed = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int ordinal = random.nextInt(400);
+            if (random.nextInt(4) == 0) {
+                index.remove(ordinal);
+                indexed.remove(ordinal);
+            } else {
+                List<String> phrases = new ArrayList<>();
+                for (int p = random.nextInt(3); p >= 0; p--) phrases.add(randomPhrase(random));
+                index.put(ordinal, phrases);
+                indexed.put(ordinal, phrases);
+            }
+            if (step % 97 == 0) {
+                TreeSet<String> keys = keysOf(indexed);
+                for (String prefix : List.of("a", "ac", "ana", "s", "sol", "d", "2", "o ", "senhor d", "x")) {
+                    int limit = 1 + random.nextInt(10);
+                    assertEquals(expected(keys, prefix, limit), index.suggest(prefix, limit), "prefixo " + prefix);
+                }
+            }
+        }
+    }
+
+    private static String randomPhrase(Random random) {
+        StringBuilder phrase = new StringBuilder();
+        for (int w = random.nextInt(4); w >= 0; w--) {
+            if (!phrase.isEmpty()) phrase.append(' ');
+            phrase.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+
+    private static TreeSet<String> keysOf(Map<Integer, List<String>> indexed) {
+        TreeSet<String> keys = new TreeSet<>();
+        for (List<String> phrases : indexed.values()) {
+            for (String phrase : phrases) {
+                String normalized = TextNormalizer.normalize(phrase);
+                for (int i = 0; i < normalized.length(); i++) {
+                    if (Character.isLetterOrDigit(normalized.charAt(i))
+                            && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)))) {
+                        keys.add(normalized.substring(i) + '\u0000' + phrase);
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static List<String> expected(TreeSet<String> keys, String prefix, int limit) {
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (String key : keys.subSet(prefix, prefix + Character.MAX_VALUE)) {
+            suggestions.add(key.substring(key.indexOf('\u0000') + 1));
+            if (suggestions.size() == limit) break;
+        }
+        return new ArrayList<>(suggestions);
+    }
+}